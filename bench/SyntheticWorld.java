@@ -0,0 +1,96 @@
+import java.util.Random;
+
+/**
+ * generates worlds of any size for benchmarks
+ * every room has a door to the next room, doors to random rooms, its own item and options which are only shown if
+ * certain items are picked up
+ */
+public class SyntheticWorld {
+
+    private static final ActionHandler NO_ACTION = (action, session) -> { };
+
+    /**
+     * creates a world with the given number of rooms
+     * @param roomCount number of rooms
+     * @param randomDoors number of doors to random rooms in every room
+     * @param conditionalOptions number of options per room which are only shown if an item is picked up
+     * @param seed seed for choosing the random doors and items
+     * @return the created world
+     */
+    public static World create(int roomCount, int randomDoors, int conditionalOptions, long seed) {
+        Random random = new Random(seed);
+        TextTable texts = new TextTable();
+        Room[] rooms = new Room[roomCount];
+
+        for (int i = 0; i < roomCount; i++)
+            rooms[i] = buildRoom(i, roomCount, randomDoors, conditionalOptions, random, texts);
+
+        return new World(rooms);
+    }
+
+    /**
+     * creates a single room of a synthetic world
+     * @param index index of the room
+     * @param roomCount number of rooms in the world
+     * @param randomDoors number of doors to random rooms
+     * @param conditionalOptions number of options which are only shown if an item is picked up
+     * @param random random generator for the doors and items
+     * @param texts the option texts shared by all rooms of the world
+     * @return the created room
+     */
+    static Room buildRoom(int index, int roomCount, int randomDoors, int conditionalOptions,
+                          Random random, TextTable texts) {
+        RoomBuilder builder = new RoomBuilder(NO_ACTION, texts)
+                .setName(roomName(index))
+                .setRoomBackOptionIfAvailable(true)
+                .setQuitOption(true)
+                .addOption("Weiter.", roomName((index + 1) % roomCount), Action.CHANGE_ROOM)
+                .addItemOptionIfNotPicked("Nimm.", itemName(index));
+
+        for (int d = 0; d < randomDoors; d++)
+            builder.addOption("Tür " + d + ".", roomName(random.nextInt(roomCount)), Action.CHANGE_ROOM);
+
+        for (int c = 0; c < conditionalOptions; c++) {
+            String requiredItem = itemName(random.nextInt(roomCount));
+            builder.addConditionalOption("Geheimtür " + c + ".", roomName(random.nextInt(roomCount)),
+                    Action.CHANGE_ROOM, Conditions.hasItem(requiredItem));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * creates a script which walks through the world by choosing the first non back option in every room and picks
+     * up the item of every room
+     * @param steps number of rooms to walk through
+     * @return the script as UTF-8 bytes
+     */
+    public static byte[] walkScript(int steps) {
+        StringBuilder script = new StringBuilder();
+        // the back option is hidden in the first room, so "Weiter" is option 0 there and option 1 in all other rooms
+        script.append("1\n0\n");
+        for (int i = 1; i < steps; i++)
+            script.append("2\n1\n");
+        script.append("quit\n");
+        return ReplayRunner.script(script.toString());
+    }
+
+    /**
+     * name of the room with the given index
+     * @param index index of the room
+     * @return the room name
+     */
+    static String roomName(int index) {
+        return "R" + index;
+    }
+
+    /**
+     * name of the item with the given index
+     * @param index index of the item
+     * @return the item name
+     */
+    static String itemName(int index) {
+        return "I" + index;
+    }
+
+}
@@ -0,0 +1,294 @@
+import com.sun.management.ThreadMXBean;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * benchmarks for room traversal, option filtering, room switching, inventory and room building
+ * every benchmark runs on synthetic worlds from 4 up to 100k rooms and reports the throughput and the allocated bytes
+ * per operation of the measuring thread
+ * the multiplayer benchmark runs thousands of players on many threads and reports the throughput and the number of
+ * times a thread was blocked by a lock per operation instead
+ *
+ * usage: javac -encoding UTF-8 -d out src/*.java bench/*.java && java -cp out TextAdventureBenchmark [filter]
+ */
+public class TextAdventureBenchmark {
+
+    private static final int[] WORLD_SIZES = {4, 1_000, 100_000};
+    private static final int RANDOM_DOORS = 4;
+    private static final int CONDITIONAL_OPTIONS = 8;
+    private static final int PLAYERS = 2_000;
+    private static final int PLAYER_THREADS = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    private static final long WARMUP_MILLIS = 1_000;
+    private static final long ITERATION_MILLIS = 1_000;
+    private static final int ITERATIONS = 3;
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // results of the benchmarked operations are added here, so the JIT can not remove the operations
+    private static volatile long sink;
+
+    /**
+     * runs all benchmarks whose name contains the filter
+     * @param args optional filter for the benchmark names
+     */
+    public static void main(String[] args) {
+        String filter = args.length > 0 ? args[0] : "";
+
+        for (int size : WORLD_SIZES) {
+            World world = SyntheticWorld.create(size, RANDOM_DOORS, CONDITIONAL_OPTIONS, 42);
+            Random random = new Random(7);
+
+            if ("getAvailableOptions".contains(filter))
+                benchmarkAvailableOptions(world, size);
+            if ("switchRoom".contains(filter))
+                benchmarkSwitchRoom(world, size, random);
+            if ("pickItem".contains(filter))
+                benchmarkInventory(world, size, random);
+            if ("build".contains(filter))
+                benchmarkBuild(size, random);
+            if ("traversal".contains(filter))
+                benchmarkTraversal(world, size);
+            if ("multiplayer".contains(filter))
+                benchmarkMultiplayer(size);
+        }
+    }
+
+    /**
+     * option filtering with a cached and with an invalidated state version
+     * @param world the world to benchmark
+     * @param size number of rooms
+     */
+    private static void benchmarkAvailableOptions(World world, int size) {
+        GameSession session = newSession(world);
+        Room room = world.getStartRoom();
+        Room otherRoom = world.getRooms().get(size - 1);
+
+        measure("getAvailableOptions.cached", size, () -> room.getAvailableOptions(session));
+        measure("getAvailableOptions.invalidated", size, () -> {
+            session.SetPrevRoom(session.GetPrevRoom() == null ? otherRoom : null);
+            return room.getAvailableOptions(session);
+        });
+    }
+
+    /**
+     * resolving rooms by name
+     * @param world the world to benchmark
+     * @param size number of rooms
+     * @param random random generator for the room names
+     */
+    private static void benchmarkSwitchRoom(World world, int size, Random random) {
+        GameSession session = newSession(world);
+        String[] names = new String[1024];
+        for (int i = 0; i < names.length; i++)
+            names[i] = SyntheticWorld.roomName(random.nextInt(size));
+
+        int[] index = {0};
+        measure("switchRoom", size, () -> session.SwitchRoom(names[index[0]++ & (names.length - 1)]).id);
+    }
+
+    /**
+     * picking up items and querying the inventory
+     * @param world the world to benchmark
+     * @param size number of rooms
+     * @param random random generator for the item names
+     */
+    private static void benchmarkInventory(World world, int size, Random random) {
+        ItemTable items = world.getItems();
+        String[] names = new String[1024];
+        for (int i = 0; i < names.length; i++)
+            names[i] = items.nameOf(random.nextInt(items.size()));
+
+        GameSession session = newSession(world);
+        int[] index = {0};
+        measure("pickItem", size, () -> {
+            session.pickItem(names[index[0]++ & (names.length - 1)]);
+            return session.getItemCount();
+        });
+        measure("hasItem", size, () -> session.hasItem(names[index[0]++ & (names.length - 1)]) ? 1 : 0);
+        measure("getAllItems", size, () -> session.getAllItems().length);
+    }
+
+    /**
+     * building single rooms with the RoomBuilder
+     * @param size number of rooms of the world the rooms belong to
+     * @param random random generator for the doors and items
+     */
+    private static void benchmarkBuild(int size, Random random) {
+        TextTable texts = new TextTable();
+        measure("RoomBuilder.build", size, () -> SyntheticWorld.buildRoom(random.nextInt(size), size,
+                RANDOM_DOORS, CONDITIONAL_OPTIONS, random, texts).options.length);
+    }
+
+    /**
+     * replaying a script which walks through up to 1000 rooms and picks up every item
+     * @param world the world to benchmark
+     * @param size number of rooms
+     */
+    private static void benchmarkTraversal(World world, int size) {
+        ReplayRunner runner = new ReplayRunner(world);
+        byte[] script = SyntheticWorld.walkScript(Math.min(size, 1_000));
+        measure("traversal", size, () -> runner.run(script).getStepCount());
+    }
+
+    /**
+     * thousands of players choosing random options at the same time, alone and in a shared world
+     * both runs get a new world, so items taken by the shared players do not change the other run
+     * @param size number of rooms
+     */
+    private static void benchmarkMultiplayer(int size) {
+        measureMultiplayer("multiplayer.alone", size, false);
+        measureMultiplayer("multiplayer.shared", size, true);
+    }
+
+    /**
+     * runs PLAYERS players on PLAYER_THREADS threads for the warmup time and then for ITERATIONS measuring iterations
+     * prints the chosen options per second and the number of times a thread blocked on a lock per option of the best
+     * iteration
+     * @param name name of the benchmark
+     * @param size number of rooms of the world
+     * @param shared true if the players join the shared state of the world
+     */
+    private static void measureMultiplayer(String name, int size, boolean shared) {
+        World world = SyntheticWorld.create(size, RANDOM_DOORS, CONDITIONAL_OPTIONS, 42);
+        GameEngine[] players = new GameEngine[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            GameSession session = newSession(world);
+            session.setPlayerName("P" + i);
+            if (shared)
+                session.joinSharedWorld();
+            players[i] = new GameEngine(session);
+        }
+
+        runPlayers(players, WARMUP_MILLIS);
+
+        double bestOpsPerSecond = 0;
+        double blockedPerOp = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            long[] result = runPlayers(players, ITERATION_MILLIS);
+            long nanos = System.nanoTime() - start;
+
+            double opsPerSecond = result[0] * 1e9 / nanos;
+            if (opsPerSecond > bestOpsPerSecond) {
+                bestOpsPerSecond = opsPerSecond;
+                blockedPerOp = (double) result[1] / result[0];
+            }
+        }
+
+        System.out.printf("%-35s %8d rooms %15.1f ops/s %12.4f blocked/op%n", name, size, bestOpsPerSecond,
+                blockedPerOp);
+    }
+
+    /**
+     * lets every thread play its part of the players round robin until the given time elapsed
+     * a player chooses a random available option except the last one, which quits the session
+     * @param players the players
+     * @param millis time to run
+     * @return the number of chosen options and the number of times a thread blocked on a lock
+     */
+    private static long[] runPlayers(GameEngine[] players, long millis) {
+        long end = System.nanoTime() + millis * 1_000_000;
+        long[] ops = new long[PLAYER_THREADS];
+        long[] blocked = new long[PLAYER_THREADS];
+        Thread[] threads = new Thread[PLAYER_THREADS];
+
+        for (int t = 0; t < PLAYER_THREADS; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(thread);
+                long blockedBefore = THREADS.getThreadInfo(Thread.currentThread().getId()).getBlockedCount();
+                long count = 0;
+                do {
+                    for (int p = thread; p < players.length; p += PLAYER_THREADS) {
+                        GameSession session = players[p].getSession();
+                        int optionCount = session.getCurrentRoom().getAvailableOptions(session);
+                        if (optionCount > 1 && players[p].applyChoice(random.nextInt(optionCount - 1)))
+                            count++;
+                    }
+                } while (System.nanoTime() < end);
+                ops[thread] = count;
+                blocked[thread] = THREADS.getThreadInfo(Thread.currentThread().getId()).getBlockedCount()
+                        - blockedBefore;
+            });
+            threads[t].start();
+        }
+
+        long[] result = new long[2];
+        for (int t = 0; t < PLAYER_THREADS; t++) {
+            try {
+                threads[t].join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return result;
+            }
+            result[0] += ops[t];
+            result[1] += blocked[t];
+        }
+        return result;
+    }
+
+    /**
+     * creates a session without input and output
+     * @param world the world of the session
+     * @return the created session
+     */
+    private static GameSession newSession(World world) {
+        return new GameSession(world, InputStream.nullInputStream(), OutputRenderer.discarding());
+    }
+
+    /**
+     * runs an operation for the warmup time and then for ITERATIONS measuring iterations
+     * prints the operations per second and the allocated bytes per operation of the best iteration
+     * @param name name of the benchmark
+     * @param size number of rooms of the world
+     * @param operation the operation to measure
+     */
+    private static void measure(String name, int size, LongSupplier operation) {
+        runFor(operation, WARMUP_MILLIS);
+
+        double bestOpsPerSecond = 0;
+        double bytesPerOp = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+            long start = System.nanoTime();
+            long ops = runFor(operation, ITERATION_MILLIS);
+            long nanos = System.nanoTime() - start;
+            long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            double opsPerSecond = ops * 1e9 / nanos;
+            if (opsPerSecond > bestOpsPerSecond) {
+                bestOpsPerSecond = opsPerSecond;
+                bytesPerOp = (double) allocated / ops;
+            }
+        }
+
+        System.out.printf("%-35s %8d rooms %15.1f ops/s %12.1f B/op%n", name, size, bestOpsPerSecond, bytesPerOp);
+    }
+
+    /**
+     * calls an operation until the given time elapsed
+     * @param operation the operation to call
+     * @param millis time to run
+     * @return number of calls
+     */
+    private static long runFor(LongSupplier operation, long millis) {
+        long end = System.nanoTime() + millis * 1_000_000;
+        long ops = 0;
+        long result = 0;
+        do {
+            for (int i = 0; i < 256; i++)
+                result += operation.getAsLong();
+            ops += 256;
+        } while (System.nanoTime() < end);
+
+        sink += result;
+        return ops;
+    }
+
+}
@@ -6,7 +6,8 @@ public interface ActionHandler {
     /**
      * called from Room to handle actions with the enum value Action.CUSTOM
      * @param action the data string stored in an options element
+     * @param session the session of the player who chose the option
      */
-    void handleAction(String action);
+    void handleAction(String action, GameSession session);
 
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+/**
+ * table of all custom actions of a world
+ * the names in the option data of Action.CUSTOM options are resolved to ids when the room is built, choosing an
+ * option only indexes the table instead of comparing the name with every action
+ *
+ * QUIT and HINT are registered in every registry, names which are not registered are passed to the fallback
+ * ActionHandler, so worlds written for an ActionHandler keep working
+ * registering and resolving is synchronized, dispatching reads the table without locking
+ */
+public class ActionRegistry implements ActionHandler {
+
+    public static final String QUIT = "QUIT";
+    public static final String HINT = "HINT";
+    // ids of the actions registered in every registry
+    static final int QUIT_ID = 0;
+    static final int HINT_ID = 1;
+
+    private final ActionHandler fallback;
+    private final Map<String, Integer> ids = new HashMap<>();
+    // replaced by a larger copy when an action is added, so dispatch never sees a partially filled table
+    private volatile CustomAction[] table = new CustomAction[0];
+
+    /**
+     * constructor for a registry without a fallback, resolving a name which is not registered fails
+     */
+    public ActionRegistry() {
+        this(null);
+    }
+
+    /**
+     * constructor for a registry passing all names which are not registered to an ActionHandler
+     * @param fallback the handler for all other actions or null
+     */
+    public ActionRegistry(ActionHandler fallback) {
+        this.fallback = fallback;
+        register(QUIT, GameSession::quit);
+        register(HINT, session -> session.getOutput().println(session.getWorld().getAnalysis().hint(session)));
+    }
+
+    /**
+     * returns the registry of an ActionHandler
+     * @param handler a registry or any other ActionHandler
+     * @return the handler if it is a registry, else a new registry with the handler as fallback
+     */
+    public static ActionRegistry of(ActionHandler handler) {
+        return handler instanceof ActionRegistry registry ? registry : new ActionRegistry(handler);
+    }
+
+    /**
+     * registers an action, a registered action with the same name is replaced
+     * rooms built before keep the replaced action until they are built again
+     * @param name the name of the action used as option data
+     * @param action the handler of the action
+     * @return the id of the action
+     */
+    public synchronized int register(String name, CustomAction action) {
+        Integer id = ids.get(name);
+        CustomAction[] newTable = Arrays.copyOf(table, id == null ? table.length + 1 : table.length);
+        if (id == null) {
+            id = table.length;
+            ids.put(name, id);
+        }
+        newTable[id] = action;
+        table = newTable;
+        return id;
+    }
+
+    /**
+     * registers an action which does its work without blocking the session
+     * the result is applied to the session before its next prompt, a result of null changes nothing
+     * an action which fails, either when it is started or later, prints an error message
+     * @param name the name of the action used as option data
+     * @param action the handler of the action
+     * @return the id of the action
+     */
+    public int registerAsync(String name, AsyncCustomAction action) {
+        Consumer<GameSession> failed = session -> session.getOutput().append(Message.ACTION_FAILED, name).newLine();
+        return register(name, session -> {
+            CompletionStage<Consumer<GameSession>> stage;
+            try {
+                stage = action.start(session);
+            } catch (RuntimeException e) {
+                session.completeAction(failed);
+                return;
+            }
+            if (stage == null) {
+                session.completeAction(failed);
+                return;
+            }
+
+            stage.whenComplete((result, error) -> {
+                if (error != null)
+                    session.completeAction(failed);
+                else if (result != null)
+                    session.completeAction(result);
+            });
+        });
+    }
+
+    /**
+     * returns the id of an action, names which are not registered are registered for the fallback handler
+     * @param name the name of the action
+     * @return the id of the action
+     * @throws IllegalArgumentException if the action is not registered and there is no fallback handler
+     */
+    public synchronized int resolve(String name) {
+        Integer id = ids.get(name);
+        if (id != null)
+            return id;
+        if (fallback == null)
+            throw new IllegalArgumentException("Aktion " + name + " nicht gefunden!");
+
+        return register(name, session -> fallback.handleAction(name, session));
+    }
+
+    /**
+     * executes an action by its id
+     * @param id the id returned by resolve or register
+     * @param session the session of the player who chose the option
+     */
+    public void dispatch(int id, GameSession session) {
+        table[id].execute(session);
+    }
+
+    /**
+     * implementation from ActionHandler for callers which only know the name of the action
+     * resolves the name on every call, rooms dispatch by id instead
+     * @param action the name of the action
+     * @param session the session of the player who chose the option
+     */
+    @Override
+    public void handleAction(String action, GameSession session) {
+        dispatch(resolve(action), session);
+    }
+
+}
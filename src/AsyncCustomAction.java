@@ -0,0 +1,20 @@
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+/**
+ * handler of a custom action which does its work without blocking the thread running the session, for example on an
+ * executor of the game
+ * the session continues immediately, the result of the action is applied to the session on its own thread before the
+ * next prompt
+ */
+public interface AsyncCustomAction {
+
+    /**
+     * starts the action, called on the thread running the session
+     * the session must not be changed by the started work, only by the returned result
+     * @param session the session of the player who chose the option
+     * @return the stage completing with the change to apply to the session, for example printing a message
+     */
+    CompletionStage<Consumer<GameSession>> start(GameSession session);
+
+}
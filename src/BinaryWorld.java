@@ -0,0 +1,381 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * read-only access to a world in the compiled binary format created by the WorldCompiler
+ * the file can be memory mapped, rooms are only decoded when they are built, so opening even huge worlds is fast
+ *
+ * layout (all numbers are big endian ints):
+ *  header        magic, version, string count, room count, option count, hash slot count, string data length,
+ *                maximum number of options of a room including the back, hint and quit options, item count
+ *  string table  string count + 1 offsets into the string data, string i ends where string i + 1 starts
+ *  room table    per room: name string, flags (FLAG_BACK, FLAG_QUIT, FLAG_HINT), index of the first option,
+ *                option count
+ *  option table  per option: action ordinal, text string, data string, target room or -1, condition string or -1
+ *  hash table    open addressing table of room index + 1 (0 for an empty slot) by the hash code of the room name
+ *  item table    per item: name string, in the order the items first appear in the option table
+ *  string data   all strings as UTF-8
+ */
+public class BinaryWorld {
+
+    static final int MAGIC = 0x54415731;
+    static final int VERSION = 2;
+
+    static final int HEADER_SIZE = 9 * Integer.BYTES;
+    static final int ROOM_RECORD_SIZE = 4 * Integer.BYTES;
+    static final int OPTION_RECORD_SIZE = 5 * Integer.BYTES;
+
+    static final int FLAG_BACK = 1;
+    static final int FLAG_QUIT = 2;
+    static final int FLAG_HINT = 4;
+
+    private static final Action[] ACTIONS = Action.values();
+
+    // number of entries of the caches of decoded strings and conditions, a power of two
+    private static final int CACHE_SIZE = 4096;
+
+    private final ByteBuffer data;
+    private final int roomCount;
+    private final int optionCount;
+    private final int hashSlots;
+    private final int maxOptionCount;
+    private final int itemCount;
+    private final int stringTableOffset;
+    private final int roomTableOffset;
+    private final int optionTableOffset;
+    private final int hashTableOffset;
+    private final int itemTableOffset;
+    private final int stringDataOffset;
+
+    // direct mapped caches by string index, texts and conditions used by many rooms are decoded once and shared by
+    // all rooms while they stay in the cache, a colliding string replaces the entry
+    private final CacheEntry[] stringCache = new CacheEntry[CACHE_SIZE];
+    private final CacheEntry[] conditionCache = new CacheEntry[CACHE_SIZE];
+    // option texts of all rooms built from this world, unlike the cache an interned text is never evicted
+    private final TextTable texts = new TextTable();
+
+    /**
+     * constructor for a binary world
+     * @param data the compiled world
+     * @throws IllegalArgumentException if the data is not a compiled world
+     */
+    public BinaryWorld(ByteBuffer data) {
+        this.data = data;
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC)
+            throw new IllegalArgumentException("Keine kompilierte Welt!");
+        if (data.getInt(4) != VERSION)
+            throw new IllegalArgumentException("Version " + data.getInt(4)
+                    + " der kompilierten Welt wird nicht unterstützt, bitte die Welt neu kompilieren!");
+
+        int stringCount = data.getInt(8);
+        roomCount = data.getInt(12);
+        optionCount = data.getInt(16);
+        hashSlots = data.getInt(20);
+        maxOptionCount = data.getInt(28);
+        itemCount = data.getInt(32);
+
+        stringTableOffset = HEADER_SIZE;
+        roomTableOffset = stringTableOffset + (stringCount + 1) * Integer.BYTES;
+        optionTableOffset = roomTableOffset + roomCount * ROOM_RECORD_SIZE;
+        hashTableOffset = optionTableOffset + optionCount * OPTION_RECORD_SIZE;
+        itemTableOffset = hashTableOffset + hashSlots * Integer.BYTES;
+        stringDataOffset = itemTableOffset + itemCount * Integer.BYTES;
+    }
+
+    /**
+     * maps a compiled world file into memory
+     * @param file the path of the file
+     * @return the binary world
+     * @throws IOException if the file can not be read
+     */
+    public static BinaryWorld open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinaryWorld(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * checks if data starts like a compiled world
+     * @param header the first bytes of a file
+     * @return true if the data is a compiled world
+     */
+    public static boolean isBinaryWorld(byte[] header) {
+        return header.length >= Integer.BYTES && ByteBuffer.wrap(header).getInt(0) == MAGIC;
+    }
+
+    /**
+     * getter for the number of rooms
+     * @return number of rooms
+     */
+    public int getRoomCount() {
+        return roomCount;
+    }
+
+    /**
+     * getter for the total number of options of all rooms
+     * @return number of options
+     */
+    public int getOptionCount() {
+        return optionCount;
+    }
+
+    /**
+     * decodes the name of a room
+     * @param room the index of the room
+     * @return the name of the room
+     */
+    public String getRoomName(int room) {
+        return getString(data.getInt(roomTableOffset + room * ROOM_RECORD_SIZE));
+    }
+
+    /**
+     * appends the UTF-8 encoded name of a room to a renderer without decoding it
+     * @param room the index of the room
+     * @param out the renderer
+     */
+    public void appendRoomName(int room, OutputRenderer out) {
+        int index = data.getInt(roomTableOffset + room * ROOM_RECORD_SIZE);
+        int start = data.getInt(stringTableOffset + index * Integer.BYTES);
+        int end = data.getInt(stringTableOffset + (index + 1) * Integer.BYTES);
+        out.append(data, stringDataOffset + start, end - start);
+    }
+
+    /**
+     * computes the fingerprint of the UTF-8 encoded names of all rooms like RoomSource.fingerprint, the names are read
+     * from the string data without decoding them
+     * @return the fingerprint
+     */
+    public long fingerprintRoomNames() {
+        long fingerprint = World.FINGERPRINT_BASIS;
+        for (int room = 0; room < roomCount; room++) {
+            int index = data.getInt(roomTableOffset + room * ROOM_RECORD_SIZE);
+            int start = data.getInt(stringTableOffset + index * Integer.BYTES);
+            int end = data.getInt(stringTableOffset + (index + 1) * Integer.BYTES);
+            for (int i = stringDataOffset + start; i < stringDataOffset + end; i++)
+                fingerprint = World.fingerprint(fingerprint, data.get(i));
+            fingerprint = World.fingerprint(fingerprint, (byte) 0);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * returns the number of options of a room, without the back, hint and quit options
+     * @param room the index of the room
+     * @return the number of options
+     */
+    public int getRoomOptionCount(int room) {
+        return data.getInt(roomTableOffset + room * ROOM_RECORD_SIZE + 12);
+    }
+
+    /**
+     * returns the target room of an option of a room
+     * @param room the index of the room
+     * @param option the index of the option in the room, without the back option
+     * @return the index of the target room or -1 if the option does not change to a fixed room
+     */
+    public int getOptionTarget(int room, int option) {
+        return data.getInt(optionRecord(room, option) + 12);
+    }
+
+    /**
+     * returns the action of an option of a room
+     * @param room the index of the room
+     * @param option the index of the option in the room, without the back option
+     * @return the action of the option
+     */
+    public Action getOptionAction(int room, int option) {
+        return ACTIONS[data.getInt(optionRecord(room, option))];
+    }
+
+    /**
+     * finds the index of a room by its name using the hash table of the file
+     * @param name the name of the room
+     * @return the index of the room or -1 if there is no room with this name
+     */
+    public int findRoom(String name) {
+        if (hashSlots == 0)
+            return -1;
+
+        int mask = hashSlots - 1;
+        for (int slot = hashSlot(name, hashSlots); ; slot = (slot + 1) & mask) {
+            int entry = data.getInt(hashTableOffset + slot * Integer.BYTES);
+            if (entry == 0)
+                return -1;
+            if (getRoomName(entry - 1).equals(name))
+                return entry - 1;
+        }
+    }
+
+    /**
+     * decodes a room and builds it with a RoomBuilder
+     * @param room the index of the room
+     * @param handler the ActionHandler for custom actions of the room
+     * @return the built room
+     */
+    public Room buildRoom(int room, ActionHandler handler) {
+        int record = roomTableOffset + room * ROOM_RECORD_SIZE;
+        int flags = data.getInt(record + 4);
+
+        RoomBuilder builder = new RoomBuilder(handler, texts)
+                .setName(getString(data.getInt(record)))
+                .setRoomBackOptionIfAvailable((flags & FLAG_BACK) != 0)
+                .setQuitOption((flags & FLAG_QUIT) != 0)
+                .setHintOption((flags & FLAG_HINT) != 0);
+
+        int count = data.getInt(record + 12);
+        for (int i = 0; i < count; i++) {
+            int option = optionRecord(room, i);
+            Action action = ACTIONS[data.getInt(option)];
+            String text = getSharedString(data.getInt(option + 4));
+            String optionData = getSharedString(data.getInt(option + 8));
+            int target = data.getInt(option + 12);
+            int condition = data.getInt(option + 16);
+
+            // the target room was resolved by the WorldCompiler, switching to it needs no lookup by name
+            builder.addOption(new Option(text, optionData, action,
+                    condition < 0 ? Conditions.always() : getSharedCondition(condition), -1, target));
+        }
+        return builder.build();
+    }
+
+    /**
+     * builds all rooms of the world
+     * @param handler the ActionHandler for custom actions of all rooms, all rooms share one ActionRegistry
+     * @return the world containing all rooms
+     */
+    public World toWorld(ActionHandler handler) {
+        ActionRegistry actions = ActionRegistry.of(handler);
+        Room[] rooms = new Room[roomCount];
+        for (int i = 0; i < roomCount; i++)
+            rooms[i] = buildRoom(i, actions);
+        return new World(rooms);
+    }
+
+    /**
+     * creates a world whose rooms are decoded on first visit by a LazyRoomSource
+     * only the item table is decoded when the world is created, the maximum option count is read from the header, so
+     * opening takes the same time for every number of rooms
+     * @param handler the ActionHandler for custom actions of all rooms
+     * @param cacheCapacity the maximum number of decoded rooms kept in memory
+     * @return the world
+     */
+    public World toLazyWorld(ActionHandler handler, int cacheCapacity) {
+        ItemTable items = new ItemTable(getItemNames());
+        LazyRoomSource rooms = new LazyRoomSource(this, ActionRegistry.of(handler), items, cacheCapacity);
+        return new World(rooms, items, maxOptionCount);
+    }
+
+    /**
+     * decodes the item table, the items of all options with Action.PICK_ITEM in the order of the option table
+     * @return the names of all items without duplicates
+     */
+    public String[] getItemNames() {
+        String[] names = new String[itemCount];
+        for (int i = 0; i < itemCount; i++)
+            names[i] = getString(data.getInt(itemTableOffset + i * Integer.BYTES));
+        return names;
+    }
+
+    /**
+     * getter for the maximum number of options of a single room including the back, hint and quit options
+     * @return maximum number of options in a room
+     */
+    public int getMaxOptionCount() {
+        return maxOptionCount;
+    }
+
+    /**
+     * returns the position of the record of an option of a room
+     * @param room the index of the room
+     * @param option the index of the option in the room
+     * @return the position in the data
+     */
+    private int optionRecord(int room, int option) {
+        int firstOption = data.getInt(roomTableOffset + room * ROOM_RECORD_SIZE + 8);
+        return optionTableOffset + (firstOption + option) * OPTION_RECORD_SIZE;
+    }
+
+    /**
+     * decodes a string of the string table
+     * @param index the index of the string
+     * @return the decoded string
+     */
+    String getString(int index) {
+        int start = data.getInt(stringTableOffset + index * Integer.BYTES);
+        int end = data.getInt(stringTableOffset + (index + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        data.get(stringDataOffset + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * returns a string from the string cache, decodes it on a cache miss
+     * @param index the index of the string
+     * @return the string, the same instance as for earlier calls while it stays in the cache
+     */
+    private String getSharedString(int index) {
+        int slot = index & (CACHE_SIZE - 1);
+        CacheEntry entry = stringCache[slot];
+        if (entry != null && entry.index == index)
+            return (String) entry.value;
+
+        String value = getString(index);
+        stringCache[slot] = new CacheEntry(index, value);
+        return value;
+    }
+
+    /**
+     * returns a compiled condition from the condition cache, parses and compiles it on a cache miss
+     * the compiled condition is shared by all options with the same condition string
+     * @param index the index of the condition string
+     * @return the compiled condition
+     * @throws IllegalArgumentException if the condition string is not a valid condition
+     */
+    private OptionCondition getSharedCondition(int index) {
+        int slot = index & (CACHE_SIZE - 1);
+        CacheEntry entry = conditionCache[slot];
+        if (entry != null && entry.index == index)
+            return (OptionCondition) entry.value;
+
+        Condition condition = Conditions.parse(getString(index));
+        OptionCondition value = condition == Conditions.always() || condition == Conditions.hasPrevRoom()
+                ? condition : new CompiledCondition(condition);
+        conditionCache[slot] = new CacheEntry(index, value);
+        return value;
+    }
+
+    /**
+     * computes the first slot of a room name in the hash table
+     * @param name the name of the room
+     * @param slots the number of slots, a power of two
+     * @return the slot index
+     */
+    static int hashSlot(String name, int slots) {
+        int hash = name.hashCode();
+        hash ^= hash >>> 16;
+        return hash & (slots - 1);
+    }
+
+    /**
+     * entry of the string or condition cache, immutable so the caches can be read and written without locking
+     */
+    private static final class CacheEntry {
+        final int index;
+        final Object value;
+
+        /**
+         * constructor for a cache entry
+         * @param index the index of the string
+         * @param value the decoded string or condition
+         */
+        CacheEntry(int index, Object value) {
+            this.index = index;
+            this.value = value;
+        }
+    }
+
+}
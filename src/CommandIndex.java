@@ -0,0 +1,179 @@
+import java.util.Arrays;
+
+/**
+ * resolves typed commands like "nimm Schlüssel", "gehe Raum2" or "zurück" to the options of a room
+ * a command is either the display text of an option, a verb followed by the data of an option (the room or the item)
+ * or only the data of an option
+ * the texts of the back, hint and quit options are messages, they are compared with the text of the MessageTable of
+ * the session, so players can type the text they are shown in every language
+ * the index is built once per room by the RoomBuilder and only read while playing, so it is shared by all sessions
+ * resolving a command does not allocate, the input is normalized in place, see CommandTrie.normalize
+ */
+public class CommandIndex {
+
+    // returned by resolve if the command does not belong to any option of the room
+    public static final int UNKNOWN = -1;
+    // returned by resolve if the command belongs to an option which is not available right now
+    public static final int NOT_AVAILABLE = -2;
+
+    // the keys of the display texts, the keys of the option data are prefixed by 1 + the ordinal of the action
+    private static final int TEXT = 0;
+
+    // verbs mapped to the prefix of the option data they are followed by
+    private static final CommandTrie VERBS = new CommandTrie();
+    private static final Action[] ACTIONS = Action.values();
+
+    static {
+        addVerbs(Action.CHANGE_ROOM, "gehe", "geh", "wechsle", "betrete", "laufe");
+        addVerbs(Action.PICK_ITEM, "nimm", "nehme", "hebe", "sammle");
+        addVerbs(Action.CUSTOM, "benutze", "mache");
+    }
+
+    private final Option[] options;
+    // indices of the options whose display text is a message
+    private final int[] messageOptions;
+    // the values are the indices of the options
+    private final CommandTrie trie = new CommandTrie();
+
+    /**
+     * constructor for the index of the options of a room
+     * @param options all options of the room
+     */
+    public CommandIndex(Option[] options) {
+        this.options = options;
+        int messageOptionCount = 0;
+        int[] messageOptions = new int[options.length];
+        for (int i = 0; i < options.length; i++) {
+            Option option = options[i];
+            Action action = option.getOptionAction();
+            String data = option.getOptionData();
+            if (option.getTextMessage() != null)
+                messageOptions[messageOptionCount++] = i;
+            else
+                trie.add(TEXT, option.getOptionText(), i);
+
+            // the back, hint and quit options are chosen by German words instead of their internal data
+            if (action == Action.CHANGE_ROOM && data.equals("PREV")) {
+                trie.add(TEXT, "zurück", i);
+                trie.add(prefixOf(action), "zurück", i);
+            } else if (action == Action.CUSTOM && data.equals(ActionRegistry.HINT)) {
+                trie.add(TEXT, "tipp", i);
+                trie.add(TEXT, "hilfe", i);
+            } else if (action == Action.CUSTOM && data.equals(ActionRegistry.QUIT)) {
+                trie.add(TEXT, "ende", i);
+                trie.add(TEXT, "beenden", i);
+            } else {
+                trie.add(prefixOf(action), data, i);
+            }
+        }
+        this.messageOptions = Arrays.copyOf(messageOptions, messageOptionCount);
+    }
+
+    /**
+     * resolves a normalized command to an available option
+     * the command is looked up as a display text, then as a verb followed by the data of an option and then as the
+     * data of a room, an item or a custom action, if several options have the same key the first available is chosen
+     * @param command the command, normalized by CommandTrie.normalize
+     * @param length the number of bytes of the command
+     * @param messages the message table of the session for the texts of the back, hint and quit options
+     * @param availableOptions the available options of the room, see Room.getAvailableOptions
+     * @param availableCount the number of available options
+     * @return the index of the option in the available options, UNKNOWN or NOT_AVAILABLE
+     */
+    public int resolve(byte[] command, int length, MessageTable messages, Option[] availableOptions,
+                       int availableCount) {
+        for (int index : messageOptions) {
+            Option option = options[index];
+            if (matches(messages.getCommandKey(option.getTextMessage()), command, length))
+                return indexOfAvailable(option, availableOptions, availableCount);
+        }
+
+        int entry = trie.find(TEXT, command, 0, length);
+        if (entry == CommandTrie.NOT_FOUND) {
+            int space = indexOfSpace(command, length);
+            if (space > 0) {
+                int verb = VERBS.find(-1, command, 0, space);
+                if (verb != CommandTrie.NOT_FOUND)
+                    entry = trie.find(VERBS.valueOf(verb), command, space + 1, length);
+            }
+        }
+        for (int action = 0; entry == CommandTrie.NOT_FOUND && action < ACTIONS.length; action++)
+            entry = trie.find(prefixOf(ACTIONS[action]), command, 0, length);
+        if (entry == CommandTrie.NOT_FOUND)
+            return UNKNOWN;
+
+        for (; entry != CommandTrie.NOT_FOUND; entry = trie.nextEntry(entry)) {
+            int index = indexOfAvailable(options[trie.valueOf(entry)], availableOptions, availableCount);
+            if (index != NOT_AVAILABLE)
+                return index;
+        }
+        return NOT_AVAILABLE;
+    }
+
+    /**
+     * returns the index of an option in the available options
+     * @param option the option
+     * @param availableOptions the available options of the room
+     * @param availableCount the number of available options
+     * @return the index or NOT_AVAILABLE
+     */
+    private static int indexOfAvailable(Option option, Option[] availableOptions, int availableCount) {
+        for (int i = 0; i < availableCount; i++) {
+            if (availableOptions[i] == option)
+                return i;
+        }
+        return NOT_AVAILABLE;
+    }
+
+    /**
+     * compares a key without spaces with a normalized command, spaces in the command are skipped
+     * @param key the key, see MessageTable.getCommandKey
+     * @param command the normalized command
+     * @param length the number of bytes of the command
+     * @return true if the command without spaces equals the key
+     */
+    private static boolean matches(byte[] key, byte[] command, int length) {
+        int k = 0;
+        for (int i = 0; i < length; i++) {
+            if (command[i] == ' ')
+                continue;
+            if (k == key.length || key[k++] != command[i])
+                return false;
+        }
+        return k == key.length && k > 0;
+    }
+
+    /**
+     * adds verbs for the data of options with the given action
+     * @param action the action
+     * @param verbs the verbs
+     */
+    private static void addVerbs(Action action, String... verbs) {
+        for (String verb : verbs)
+            VERBS.add(-1, verb, prefixOf(action));
+    }
+
+    /**
+     * returns the prefix of the keys of the data of options with an action
+     * @param action the action
+     * @return the prefix
+     */
+    private static int prefixOf(Action action) {
+        return 1 + action.ordinal();
+    }
+
+    /**
+     * returns the index of the first space of a command
+     * @param command the normalized command
+     * @param length the number of bytes of the command
+     * @return the index or -1 if the command is a single word
+     */
+    private static int indexOfSpace(byte[] command, int length) {
+        for (int i = 0; i < length; i++) {
+            if (command[i] == ' ')
+                return i;
+        }
+        return -1;
+    }
+
+}
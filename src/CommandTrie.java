@@ -0,0 +1,202 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * trie over normalized UTF-8 keys for resolving typed commands without allocating
+ * keys and input are normalized the same way: upper case ASCII letters and upper case letters of Latin-1 (for example
+ * the German umlauts) are folded to lower case, spaces are ignored and trailing punctuation is dropped
+ * input typed in another charset is converted to UTF-8 by the InputReader before it is normalized
+ * a key can have several values, they are returned in the order they were added
+ * the nodes are stored in parallel arrays, every node links to its first child and its next sibling, so a lookup only
+ * reads arrays
+ */
+public class CommandTrie {
+
+    // returned by find and nextEntry if there is no (further) value
+    public static final int NOT_FOUND = -1;
+
+    private static final int INITIAL_SIZE = 16;
+
+    private byte[] labels = new byte[INITIAL_SIZE];
+    private int[] firstChild = new int[INITIAL_SIZE];
+    private int[] nextSibling = new int[INITIAL_SIZE];
+    // first entry of the values of every node
+    private int[] firstEntry = new int[INITIAL_SIZE];
+    private int nodeCount = 1;
+
+    private int[] entryValues = new int[INITIAL_SIZE];
+    private int[] entryNext = new int[INITIAL_SIZE];
+    private int entryCount = 0;
+
+    /**
+     * constructor for an empty trie
+     */
+    public CommandTrie() {
+        firstChild[0] = NOT_FOUND;
+        nextSibling[0] = NOT_FOUND;
+        firstEntry[0] = NOT_FOUND;
+    }
+
+    /**
+     * adds a value for a key, keys are normalized before they are added
+     * @param prefix a byte added before the key, for example to separate keys of different kinds of options, or -1
+     * @param key the key
+     * @param value the value, must not be negative
+     */
+    public void add(int prefix, String key, int value) {
+        int node = 0;
+        if (prefix >= 0)
+            node = childOrAdd(node, (byte) prefix);
+
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = normalize(bytes, bytes.length);
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != ' ')
+                node = childOrAdd(node, bytes[i]);
+        }
+        if (node == 0)
+            return;
+
+        if (entryCount == entryValues.length) {
+            entryValues = Arrays.copyOf(entryValues, entryCount * 2);
+            entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+        }
+        entryValues[entryCount] = value;
+        entryNext[entryCount] = NOT_FOUND;
+
+        // append the entry, so values keep the order they were added
+        if (firstEntry[node] == NOT_FOUND) {
+            firstEntry[node] = entryCount;
+        } else {
+            int last = firstEntry[node];
+            while (entryNext[last] != NOT_FOUND)
+                last = entryNext[last];
+            entryNext[last] = entryCount;
+        }
+        entryCount++;
+    }
+
+    /**
+     * looks up a normalized text, spaces in the text are skipped
+     * @param prefix the byte added before the key or -1
+     * @param text the normalized text, see normalize
+     * @param start the index of the first byte of the text
+     * @param end the index after the last byte of the text
+     * @return the first entry of the values of the key or NOT_FOUND
+     */
+    public int find(int prefix, byte[] text, int start, int end) {
+        int node = prefix >= 0 ? child(0, (byte) prefix) : 0;
+        for (int i = start; i < end && node != NOT_FOUND; i++) {
+            if (text[i] != ' ')
+                node = child(node, text[i]);
+        }
+        return node == NOT_FOUND || node == 0 ? NOT_FOUND : firstEntry[node];
+    }
+
+    /**
+     * getter for the value of an entry
+     * @param entry the entry returned by find or nextEntry
+     * @return the value
+     */
+    public int valueOf(int entry) {
+        return entryValues[entry];
+    }
+
+    /**
+     * returns the next value of the same key
+     * @param entry the entry returned by find or nextEntry
+     * @return the next entry or NOT_FOUND
+     */
+    public int nextEntry(int entry) {
+        return entryNext[entry];
+    }
+
+    /**
+     * normalizes a UTF-8 text in place: folds upper case letters to lower case, removes leading and trailing
+     * whitespace and trailing punctuation and replaces whitespace between words with a single space
+     * @param text the text
+     * @param length the number of bytes of the text
+     * @return the number of bytes of the normalized text at the start of the array
+     */
+    public static int normalize(byte[] text, int length) {
+        int end = length;
+        while (end > 0 && isWhitespaceOrPunctuation(text[end - 1]))
+            end--;
+
+        int written = 0;
+        boolean space = false;
+        for (int i = 0; i < end; i++) {
+            byte b = text[i];
+            if (b == ' ' || b == '\t' || b == '\r') {
+                space = written > 0;
+                continue;
+            }
+            if (space) {
+                text[written++] = ' ';
+                space = false;
+            }
+
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            } else if (b == (byte) 0xC3 && i + 1 < end) {
+                // Latin-1 upper case letters U+00C0 to U+00DE except the multiplication sign are 0xC3 0x80 to 0xC3 0x9E
+                int next = text[i + 1] & 0xFF;
+                text[written++] = b;
+                b = next >= 0x80 && next <= 0x9E && next != 0x97 ? (byte) (next + 0x20) : text[i + 1];
+                i++;
+            }
+            text[written++] = b;
+        }
+        return written;
+    }
+
+    /**
+     * returns the child of a node with the given label
+     * @param node the node
+     * @param label the label of the child
+     * @return the child or NOT_FOUND
+     */
+    private int child(int node, byte label) {
+        for (int child = firstChild[node]; child != NOT_FOUND; child = nextSibling[child]) {
+            if (labels[child] == label)
+                return child;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * returns the child of a node with the given label and adds it if it does not exist
+     * @param node the node
+     * @param label the label of the child
+     * @return the child
+     */
+    private int childOrAdd(int node, byte label) {
+        int child = child(node, label);
+        if (child != NOT_FOUND)
+            return child;
+
+        if (nodeCount == labels.length) {
+            labels = Arrays.copyOf(labels, nodeCount * 2);
+            firstChild = Arrays.copyOf(firstChild, nodeCount * 2);
+            nextSibling = Arrays.copyOf(nextSibling, nodeCount * 2);
+            firstEntry = Arrays.copyOf(firstEntry, nodeCount * 2);
+        }
+        child = nodeCount++;
+        labels[child] = label;
+        firstChild[child] = NOT_FOUND;
+        firstEntry[child] = NOT_FOUND;
+        nextSibling[child] = firstChild[node];
+        firstChild[node] = child;
+        return child;
+    }
+
+    /**
+     * checks if a byte can be dropped at the end of a command
+     * @param b the byte
+     * @return true if the byte is a whitespace or a punctuation mark
+     */
+    private static boolean isWhitespaceOrPunctuation(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '.' || b == '!' || b == '?';
+    }
+
+}
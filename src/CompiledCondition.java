@@ -0,0 +1,290 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * a Condition compiled into a disjunction of terms, every term is a conjunction of bit mask tests on the words of the
+ * inventory and an optional test of the previous room
+ * the item names are resolved to ids by link when the ItemTable of the world is known, until then the source
+ * condition is checked by item names
+ * conditions whose disjunctive form would have more than MAX_TERMS terms are not compiled and always check the source
+ */
+public final class CompiledCondition implements OptionCondition {
+
+    private static final int MAX_TERMS = 32;
+
+    // requirements of a term on the previous room
+    private static final byte PREV_ANY = 0;
+    private static final byte PREV_REQUIRED = 1;
+    private static final byte PREV_FORBIDDEN = 2;
+
+    private final Condition source;
+    // the terms by item names, null if the source has too many terms
+    private final List<Term> terms;
+
+    // the linked terms, term t tests the words termStart[t] until termStart[t + 1] - 1
+    private volatile boolean linked = false;
+    private int[] termStart;
+    private byte[] termPrev;
+    private int[] wordIndex;
+    private long[] requiredMask;
+    private long[] forbiddenMask;
+
+    /**
+     * compiles a condition into its disjunctive form
+     * @param source the condition to compile
+     */
+    public CompiledCondition(Condition source) {
+        this.source = source;
+        this.terms = toTerms(source, false);
+    }
+
+    /**
+     * getter for the condition this condition was compiled from
+     * @return the source condition
+     */
+    public Condition getSource() {
+        return source;
+    }
+
+    /**
+     * resolves the item names of all terms to ids and creates the bit masks
+     * items which are not in the table can never be picked up, so "has" is always false and "not" always true for
+     * them
+     * a condition is linked only once, it can be shared by rooms which are linked again, for example rooms decoded
+     * again by a LazyRoomSource
+     * @param items the item table of the world
+     */
+    public synchronized void link(ItemTable items) {
+        if (terms == null || linked)
+            return;
+
+        List<Integer> starts = new ArrayList<>();
+        List<Byte> prevs = new ArrayList<>();
+        List<long[]> words = new ArrayList<>();
+
+        for (Term term : terms) {
+            List<long[]> termWords = new ArrayList<>();
+            if (!addMasks(termWords, term.required, items, true) || !addMasks(termWords, term.forbidden, items, false))
+                continue;
+
+            starts.add(words.size());
+            prevs.add(term.prev);
+            words.addAll(termWords);
+        }
+
+        termStart = new int[starts.size() + 1];
+        termPrev = new byte[prevs.size()];
+        for (int i = 0; i < prevs.size(); i++) {
+            termStart[i] = starts.get(i);
+            termPrev[i] = prevs.get(i);
+        }
+        termStart[prevs.size()] = words.size();
+
+        wordIndex = new int[words.size()];
+        requiredMask = new long[words.size()];
+        forbiddenMask = new long[words.size()];
+        for (int i = 0; i < words.size(); i++) {
+            wordIndex[i] = (int) words.get(i)[0];
+            requiredMask[i] = words.get(i)[1];
+            forbiddenMask[i] = words.get(i)[2];
+        }
+        linked = true;
+    }
+
+    /**
+     * checks the linked terms, a term is fulfilled if the previous room matches and all required bits are set and all
+     * forbidden bits are cleared in the inventory
+     * @param inventory a read-only view of all picked up items
+     * @param prevRoom the room the player was in before or null if there is none
+     * @return true if at least one term is fulfilled
+     */
+    @Override
+    public boolean checkCondition(InventoryView inventory, Room prevRoom) {
+        if (!linked)
+            return source.checkCondition(inventory, prevRoom);
+        return check(inventory, prevRoom != null);
+    }
+
+    /**
+     * checks the linked terms like checkCondition(InventoryView, Room) without loading the previous room
+     * @param inventory a read-only view of all picked up items
+     * @param prevRoomId the id of the room the player was in before or -1 if there is none
+     * @param rooms the rooms of the world of the player, not used
+     * @return true if at least one term is fulfilled
+     */
+    @Override
+    public boolean checkCondition(InventoryView inventory, int prevRoomId, RoomSource rooms) {
+        if (!linked)
+            return source.checkCondition(inventory, prevRoomId, rooms);
+        return check(inventory, prevRoomId >= 0);
+    }
+
+    /**
+     * checks the linked terms
+     * @param inventory a read-only view of all picked up items
+     * @param hasPrevRoom true if the player was in another room before
+     * @return true if at least one term is fulfilled
+     */
+    private boolean check(InventoryView inventory, boolean hasPrevRoom) {
+        terms:
+        for (int t = 0; t < termPrev.length; t++) {
+            byte prev = termPrev[t];
+            if (prev == PREV_REQUIRED && !hasPrevRoom || prev == PREV_FORBIDDEN && hasPrevRoom)
+                continue;
+
+            for (int w = termStart[t]; w < termStart[t + 1]; w++) {
+                long word = inventory.getItemWord(wordIndex[w]);
+                if ((word & requiredMask[w]) != requiredMask[w] || (word & forbiddenMask[w]) != 0)
+                    continue terms;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * formats the source condition
+     * @return the condition as string
+     */
+    @Override
+    public String toString() {
+        return source.toString();
+    }
+
+    /**
+     * adds the bits of items to the masks of a term
+     * @param termWords the masks of the term as {word index, required mask, forbidden mask}
+     * @param names the item names
+     * @param items the item table
+     * @param required true if the items are required, false if they are forbidden
+     * @return false if a required item is not in the item table, so the term can never be fulfilled
+     */
+    private static boolean addMasks(List<long[]> termWords, List<String> names, ItemTable items, boolean required) {
+        for (String name : names) {
+            int id = items.idOf(name);
+            if (id < 0) {
+                if (required)
+                    return false;
+                continue;
+            }
+
+            long[] masks = null;
+            for (long[] candidate : termWords) {
+                if (candidate[0] == id >>> 6)
+                    masks = candidate;
+            }
+            if (masks == null) {
+                masks = new long[] {id >>> 6, 0, 0};
+                termWords.add(masks);
+            }
+            masks[required ? 1 : 2] |= 1L << id;
+        }
+        return true;
+    }
+
+    /**
+     * converts a condition into a list of terms which are combined with or
+     * @param condition the condition to convert
+     * @param negated true if the condition is negated
+     * @return the terms or null if there would be more than MAX_TERMS terms
+     */
+    private static List<Term> toTerms(Condition condition, boolean negated) {
+        switch (condition.getKind()) {
+            case HAS_ITEM: {
+                Term term = new Term();
+                (negated ? term.forbidden : term.required).add(condition.getItem());
+                return List.of(term);
+            }
+            case HAS_PREV_ROOM: {
+                Term term = new Term();
+                term.prev = negated ? PREV_FORBIDDEN : PREV_REQUIRED;
+                return List.of(term);
+            }
+            case NOT:
+                return toTerms(condition.getOperand(0), !negated);
+            case AND:
+            case OR: {
+                // a negated and is an or of the negated operands and the other way round
+                boolean conjunction = (condition.getKind() == Condition.Kind.AND) != negated;
+                List<Term> result = conjunction ? List.of(new Term()) : new ArrayList<>();
+                for (int i = 0; i < condition.getOperandCount(); i++) {
+                    List<Term> operand = toTerms(condition.getOperand(i), negated);
+                    if (operand == null)
+                        return null;
+                    result = conjunction ? multiply(result, operand) : concat(result, operand);
+                    if (result.size() > MAX_TERMS)
+                        return null;
+                }
+                return result;
+            }
+            default:
+                return negated ? List.of() : List.of(new Term());
+        }
+    }
+
+    /**
+     * combines two disjunctions with and
+     * @param left the terms of the left disjunction
+     * @param right the terms of the right disjunction
+     * @return the terms of the combined disjunction without contradicting terms
+     */
+    private static List<Term> multiply(List<Term> left, List<Term> right) {
+        List<Term> result = new ArrayList<>();
+        for (Term l : left) {
+            for (Term r : right) {
+                Term combined = l.and(r);
+                if (combined != null)
+                    result.add(combined);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * combines two disjunctions with or
+     * @param left the terms of the left disjunction
+     * @param right the terms of the right disjunction
+     * @return the terms of both disjunctions
+     */
+    private static List<Term> concat(List<Term> left, List<Term> right) {
+        List<Term> result = new ArrayList<>(left);
+        result.addAll(right);
+        return result;
+    }
+
+    /**
+     * conjunction of required items, forbidden items and a requirement on the previous room
+     */
+    private static final class Term {
+        final List<String> required = new ArrayList<>();
+        final List<String> forbidden = new ArrayList<>();
+        byte prev = PREV_ANY;
+
+        /**
+         * combines this term with another term
+         * @param other the other term
+         * @return the combined term or null if the terms contradict each other
+         */
+        Term and(Term other) {
+            if (prev != PREV_ANY && other.prev != PREV_ANY && prev != other.prev)
+                return null;
+
+            Term result = new Term();
+            result.prev = prev != PREV_ANY ? prev : other.prev;
+            result.required.addAll(required);
+            result.forbidden.addAll(forbidden);
+            for (String item : other.required) {
+                if (result.forbidden.contains(item))
+                    return null;
+                result.required.add(item);
+            }
+            for (String item : other.forbidden) {
+                if (result.required.contains(item))
+                    return null;
+                result.forbidden.add(item);
+            }
+            return result;
+        }
+    }
+
+}
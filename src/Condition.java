@@ -0,0 +1,168 @@
+/**
+ * structured condition for an option built from the items of the player and the previous room
+ * a condition can be checked directly by item names, the RoomBuilder compiles it into a CompiledCondition which tests
+ * the inventory with bit masks
+ * conditions are created with the factory methods of Conditions
+ */
+public final class Condition implements OptionCondition {
+
+    /**
+     * the kind of a condition node
+     */
+    public enum Kind {
+        TRUE,
+        HAS_ITEM,
+        HAS_PREV_ROOM,
+        NOT,
+        AND,
+        OR
+    }
+
+    private final Kind kind;
+    private final String item;
+    private final Condition[] operands;
+
+    /**
+     * constructor for a condition node
+     * @param kind the kind of the node
+     * @param item the item for Kind.HAS_ITEM, else null
+     * @param operands the operands for Kind.NOT, Kind.AND and Kind.OR, else an empty array
+     */
+    Condition(Kind kind, String item, Condition[] operands) {
+        this.kind = kind;
+        this.item = item;
+        this.operands = operands;
+    }
+
+    /**
+     * getter for the kind of this node
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * getter for the item of a Kind.HAS_ITEM node
+     * @return the name of the item or null
+     */
+    public String getItem() {
+        return item;
+    }
+
+    /**
+     * getter for the number of operands of a Kind.NOT, Kind.AND or Kind.OR node
+     * @return number of operands
+     */
+    public int getOperandCount() {
+        return operands.length;
+    }
+
+    /**
+     * getter for an operand of a Kind.NOT, Kind.AND or Kind.OR node
+     * @param index the index of the operand
+     * @return the operand
+     */
+    public Condition getOperand(int index) {
+        return operands[index];
+    }
+
+    /**
+     * checks the condition by item names without compiling it
+     * @param inventory a read-only view of all picked up items
+     * @param prevRoom the room the player was in before or null if there is none
+     * @return true if the condition is fulfilled
+     */
+    @Override
+    public boolean checkCondition(InventoryView inventory, Room prevRoom) {
+        return check(inventory, prevRoom != null);
+    }
+
+    /**
+     * checks the condition by item names without compiling it and without loading the previous room
+     * @param inventory a read-only view of all picked up items
+     * @param prevRoomId the id of the room the player was in before or -1 if there is none
+     * @param rooms the rooms of the world of the player, not used
+     * @return true if the condition is fulfilled
+     */
+    @Override
+    public boolean checkCondition(InventoryView inventory, int prevRoomId, RoomSource rooms) {
+        return check(inventory, prevRoomId >= 0);
+    }
+
+    /**
+     * checks the condition by item names
+     * @param inventory a read-only view of all picked up items
+     * @param hasPrevRoom true if the player was in another room before
+     * @return true if the condition is fulfilled
+     */
+    private boolean check(InventoryView inventory, boolean hasPrevRoom) {
+        switch (kind) {
+            case HAS_ITEM:
+                return inventory.hasItem(item);
+            case HAS_PREV_ROOM:
+                return hasPrevRoom;
+            case NOT:
+                return !operands[0].check(inventory, hasPrevRoom);
+            case AND:
+                for (Condition operand : operands) {
+                    if (!operand.check(inventory, hasPrevRoom))
+                        return false;
+                }
+                return true;
+            case OR:
+                for (Condition operand : operands) {
+                    if (operand.check(inventory, hasPrevRoom))
+                        return true;
+                }
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * formats the condition in the condition language, see Conditions.parse
+     * @return the condition as string
+     */
+    @Override
+    public String toString() {
+        switch (kind) {
+            case HAS_ITEM:
+                return "has " + formatItem(item);
+            case HAS_PREV_ROOM:
+                return "prev";
+            case NOT:
+                if (operands[0].kind == Kind.HAS_ITEM)
+                    return "not " + formatItem(operands[0].item);
+                if (operands[0].kind == Kind.AND || operands[0].kind == Kind.OR)
+                    return "!" + operands[0];
+                return "!(" + operands[0] + ")";
+            case AND:
+            case OR:
+                StringBuilder builder = new StringBuilder("(");
+                for (int i = 0; i < operands.length; i++) {
+                    if (i > 0)
+                        builder.append(kind == Kind.AND ? " and " : " or ");
+                    builder.append(operands[i]);
+                }
+                return builder.append(")").toString();
+            default:
+                return "true";
+        }
+    }
+
+    /**
+     * quotes an item name if it could not be parsed without quotes
+     * @param item the name of the item
+     * @return the name as written in the condition language
+     */
+    private static String formatItem(String item) {
+        for (String word : item.split(" ", -1)) {
+            if (word.isEmpty() || word.equals("and") || word.equals("or") || word.matches(".*[\\s()!\"].*"))
+                return "\"" + item + "\"";
+        }
+        return item;
+    }
+
+}
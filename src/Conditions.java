@@ -0,0 +1,274 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * factory for conditions of options, the conditions are compiled by the RoomBuilder when the room is built
+ * conditions loaded from world files are written in the condition language:
+ *  "has item"      - the option is shown if the item is picked up
+ *  "not item"      - the option is shown if the item is not picked up yet
+ *  "prev"          - the option is shown if there is a previous room
+ *  "true"          - the option is always shown
+ *  "a and b"       - both conditions are fulfilled
+ *  "a or b"        - at least one of the conditions is fulfilled, "and" binds stronger than "or"
+ *  "!a", "(a)"     - negation and grouping
+ * an item name ends before the next "and", "or" or ")", names containing these words can be written in double quotes
+ */
+public class Conditions {
+
+    private static final Condition ALWAYS = new Condition(Condition.Kind.TRUE, null, new Condition[0]);
+
+    private static final Condition HAS_PREV_ROOM = new Condition(Condition.Kind.HAS_PREV_ROOM, null, new Condition[0]);
+
+    /**
+     * creates a condition which is fulfilled if an item is picked up
+     * @param item the name of the item
+     * @return the condition
+     */
+    public static Condition hasItem(String item) {
+        return new Condition(Condition.Kind.HAS_ITEM, item, new Condition[0]);
+    }
+
+    /**
+     * creates a condition which is fulfilled if an item is not picked up yet
+     * @param item the name of the item
+     * @return the condition
+     */
+    public static Condition notPicked(String item) {
+        return not(hasItem(item));
+    }
+
+    /**
+     * returns the condition which is fulfilled if there is a previous room
+     * @return the condition
+     */
+    public static Condition hasPrevRoom() {
+        return HAS_PREV_ROOM;
+    }
+
+    /**
+     * returns the condition which is always fulfilled
+     * @return the condition
+     */
+    public static Condition always() {
+        return ALWAYS;
+    }
+
+    /**
+     * creates a condition which is fulfilled if the given condition is not fulfilled
+     * @param condition the condition to negate
+     * @return the condition
+     */
+    public static Condition not(Condition condition) {
+        return new Condition(Condition.Kind.NOT, null, new Condition[] {condition});
+    }
+
+    /**
+     * creates a condition which is fulfilled if all given conditions are fulfilled
+     * @param conditions the conditions to combine
+     * @return the condition
+     */
+    public static Condition and(Condition... conditions) {
+        return new Condition(Condition.Kind.AND, null, conditions.clone());
+    }
+
+    /**
+     * creates a condition which is fulfilled if at least one of the given conditions is fulfilled
+     * @param conditions the conditions to combine
+     * @return the condition
+     */
+    public static Condition or(Condition... conditions) {
+        return new Condition(Condition.Kind.OR, null, conditions.clone());
+    }
+
+    /**
+     * creates a condition which can not be expressed with the other factory methods
+     * the condition is never compiled and its results are not cached, so it is checked every time the options are
+     * shown
+     * @param predicate the check of the inventory and the previous room, the previous room is null if there is none
+     * @return the condition
+     */
+    public static OptionCondition custom(BiPredicate<InventoryView, Room> predicate) {
+        return new OptionCondition() {
+            @Override
+            public boolean checkCondition(InventoryView inventory, Room prevRoom) {
+                return predicate.test(inventory, prevRoom);
+            }
+
+            @Override
+            public boolean isCacheable() {
+                return false;
+            }
+        };
+    }
+
+    /**
+     * parses a condition written in the condition language
+     * @param source the condition, for example "has Schlüssel and !prev"
+     * @return the parsed condition, always() if the source is empty
+     * @throws IllegalArgumentException if the source is not a valid condition
+     */
+    public static Condition parse(String source) {
+        List<String> tokens = tokenize(source);
+        if (tokens.isEmpty())
+            return ALWAYS;
+
+        Parser parser = new Parser(source, tokens);
+        Condition condition = parser.parseOr();
+        if (parser.position != tokens.size())
+            throw parser.error();
+        return condition;
+    }
+
+    /**
+     * splits a condition into words, brackets, "!" and quoted item names
+     * quoted item names are returned with their leading quote, so they are never mistaken for keywords
+     * @param source the condition
+     * @return the tokens
+     * @throws IllegalArgumentException if a quote is not closed
+     */
+    private static List<String> tokenize(String source) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')' || c == '!') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (c == '"') {
+                int end = source.indexOf('"', i + 1);
+                if (end < 0)
+                    throw new IllegalArgumentException("Bedingung \"" + source + "\" nicht erkannt!");
+                tokens.add(source.substring(i, end));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < source.length() && !Character.isWhitespace(source.charAt(i))
+                        && "()!\"".indexOf(source.charAt(i)) < 0)
+                    i++;
+                tokens.add(source.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * recursive descent parser over the tokens of a condition
+     */
+    private static final class Parser {
+        private final String source;
+        private final List<String> tokens;
+        private int position = 0;
+
+        /**
+         * constructor for a parser
+         * @param source the condition, used for error messages
+         * @param tokens the tokens of the condition
+         */
+        Parser(String source, List<String> tokens) {
+            this.source = source;
+            this.tokens = tokens;
+        }
+
+        /**
+         * parses conditions combined with "or"
+         * @return the parsed condition
+         */
+        Condition parseOr() {
+            List<Condition> operands = new ArrayList<>();
+            operands.add(parseAnd());
+            while (accept("or"))
+                operands.add(parseAnd());
+            return operands.size() == 1 ? operands.get(0) : or(operands.toArray(new Condition[0]));
+        }
+
+        /**
+         * parses conditions combined with "and"
+         * @return the parsed condition
+         */
+        Condition parseAnd() {
+            List<Condition> operands = new ArrayList<>();
+            operands.add(parseUnary());
+            while (accept("and"))
+                operands.add(parseUnary());
+            return operands.size() == 1 ? operands.get(0) : and(operands.toArray(new Condition[0]));
+        }
+
+        /**
+         * parses a negation, a bracket or a single condition
+         * @return the parsed condition
+         */
+        Condition parseUnary() {
+            if (accept("!"))
+                return not(parseUnary());
+            if (accept("(")) {
+                Condition condition = parseOr();
+                if (!accept(")"))
+                    throw error();
+                return condition;
+            }
+            if (accept("true"))
+                return ALWAYS;
+            if (accept("prev"))
+                return HAS_PREV_ROOM;
+            if (accept("has"))
+                return hasItem(parseItem());
+            if (accept("not"))
+                return notPicked(parseItem());
+            throw error();
+        }
+
+        /**
+         * parses an item name, either a quoted token or all words until the next keyword
+         * @return the item name
+         */
+        String parseItem() {
+            if (position < tokens.size() && tokens.get(position).startsWith("\""))
+                return tokens.get(position++).substring(1);
+
+            StringBuilder item = new StringBuilder();
+            while (position < tokens.size() && !isItemEnd(tokens.get(position))) {
+                if (item.length() > 0)
+                    item.append(' ');
+                item.append(tokens.get(position++));
+            }
+            if (item.length() == 0)
+                throw error();
+            return item.toString();
+        }
+
+        /**
+         * checks if a token ends an unquoted item name
+         * @param token the token
+         * @return true if the token is not part of the item name
+         */
+        boolean isItemEnd(String token) {
+            return token.equals("and") || token.equals("or") || token.equals(")") || token.equals("(")
+                    || token.equals("!") || token.startsWith("\"");
+        }
+
+        /**
+         * consumes the next token if it equals the given token
+         * @param token the expected token
+         * @return true if the token was consumed
+         */
+        boolean accept(String token) {
+            if (position < tokens.size() && tokens.get(position).equals(token)) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * creates the exception for an invalid condition
+         * @return the exception
+         */
+        IllegalArgumentException error() {
+            return new IllegalArgumentException("Bedingung \"" + source + "\" nicht erkannt!");
+        }
+    }
+
+}
@@ -0,0 +1,13 @@
+/**
+ * handler of a single custom action registered at an ActionRegistry
+ * called on the thread running the session when an option with Action.CUSTOM and the name of the action is chosen
+ */
+public interface CustomAction {
+
+    /**
+     * executes the action
+     * @param session the session of the player who chose the option
+     */
+    void execute(GameSession session);
+
+}
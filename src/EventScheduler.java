@@ -0,0 +1,92 @@
+/**
+ * schedules world events after a time, for example a door which closes again after some seconds
+ * all sessions of the process share one TimingWheel which is advanced by a daemon thread every
+ * "textadventure.scheduler.tick" milliseconds (default 50), so events fire at most one tick late
+ * the thread is started with the first scheduled event, events run on the scheduler thread and must not block, events
+ * of a session are passed to the session with GameSession.completeAction, see GameSession.scheduleAfterMillis
+ */
+public class EventScheduler {
+
+    private static final long TICK_MILLIS = Math.max(1, Long.getLong("textadventure.scheduler.tick", 50));
+
+    private static final EventScheduler INSTANCE = new EventScheduler();
+
+    private final long startNanos = System.nanoTime();
+    private final TimingWheel wheel = new TimingWheel(0);
+    private Thread thread = null;
+
+    /**
+     * constructor for the single instance
+     */
+    private EventScheduler() {
+    }
+
+    /**
+     * returns the scheduler of this process
+     * @return the scheduler
+     */
+    public static EventScheduler get() {
+        return INSTANCE;
+    }
+
+    /**
+     * schedules a task after a time
+     * @param delayMillis the time until the task is due in milliseconds
+     * @param task the work, must not block
+     * @return the event for cancelling the task
+     */
+    public ScheduledEvent schedule(long delayMillis, Runnable task) {
+        start();
+        // the wheel may be behind the clock by up to one tick, the delay is counted from the current time
+        long delayTicks = currentTick() - wheel.getCurrentTick() + (delayMillis + TICK_MILLIS - 1) / TICK_MILLIS;
+        return wheel.schedule(delayTicks, task);
+    }
+
+    /**
+     * getter for the number of pending events of all sessions
+     * @return number of pending events
+     */
+    public int getPendingCount() {
+        return wheel.size();
+    }
+
+    /**
+     * starts the thread advancing the wheel if it is not running yet
+     */
+    private synchronized void start() {
+        if (thread != null)
+            return;
+
+        thread = new Thread(this::run, "event-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * advances the wheel to the current time once per tick
+     */
+    private void run() {
+        while (true) {
+            try {
+                Thread.sleep(TICK_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                wheel.advance(currentTick());
+            } catch (RuntimeException e) {
+                System.err.println("Ereignis fehlgeschlagen: " + e);
+            }
+        }
+    }
+
+    /**
+     * computes the tick of the current time
+     * @return the number of ticks since the scheduler was created
+     */
+    private long currentTick() {
+        return (System.nanoTime() - startNanos) / 1_000_000 / TICK_MILLIS;
+    }
+
+}
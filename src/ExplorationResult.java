@@ -0,0 +1,101 @@
+/**
+ * result of exploring all states of a world with the StateExplorer
+ */
+public class ExplorationResult {
+
+    private final long stateCount;
+    private final long transitionCount;
+    private final long quitCount;
+    private final int failureCount;
+    private final String[] failures;
+    private final boolean truncated;
+    private final long millis;
+
+    /**
+     * constructor for an exploration result
+     * @param stateCount number of explored states
+     * @param transitionCount number of executed options
+     * @param quitCount number of executed options which ended the session
+     * @param failureCount number of options which failed
+     * @param failures descriptions of the first failed options
+     * @param truncated true if the exploration stopped at the maximum number of states
+     * @param millis duration of the exploration in milliseconds
+     */
+    public ExplorationResult(long stateCount, long transitionCount, long quitCount, int failureCount,
+                             String[] failures, boolean truncated, long millis) {
+        this.stateCount = stateCount;
+        this.transitionCount = transitionCount;
+        this.quitCount = quitCount;
+        this.failureCount = failureCount;
+        this.failures = failures;
+        this.truncated = truncated;
+        this.millis = millis;
+    }
+
+    /**
+     * getter for the number of explored states
+     * @return number of states
+     */
+    public long getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * getter for the number of executed options
+     * @return number of executed options
+     */
+    public long getTransitionCount() {
+        return transitionCount;
+    }
+
+    /**
+     * getter for the number of executed options which ended the session
+     * @return number of quitting options
+     */
+    public long getQuitCount() {
+        return quitCount;
+    }
+
+    /**
+     * getter for the number of options which failed
+     * @return number of failures
+     */
+    public int getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * getter for the descriptions of the failed options, at most the first 100 failures are kept
+     * @return the failures
+     */
+    public String[] getFailures() {
+        return failures;
+    }
+
+    /**
+     * checks if the exploration stopped before all states were explored
+     * @return true if the maximum number of states was reached
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * formats the result of the exploration
+     * @return the result as text
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Zustände: ").append(stateCount)
+                .append(truncated ? " (abgebrochen)" : "")
+                .append(", Optionen: ").append(transitionCount)
+                .append(", Spielende: ").append(quitCount)
+                .append(", Fehler: ").append(failureCount)
+                .append(", Dauer: ").append(millis).append(" ms\n");
+        for (String failure : failures)
+            builder.append("  ").append(failure).append('\n');
+        return builder.toString();
+    }
+
+}
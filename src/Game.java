@@ -1,40 +1,43 @@
-public class Game implements ItemPicker, RoomSwitcher, ActionHandler {
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.function.Supplier;
 
-    // Maximum number of different items in the game
-    private static final int MAX_ITEMS = 15;
+public class Game {
 
-    private int pickedItemCount = 0;
-    private final String[] pickedItems = new String[MAX_ITEMS];
-    private final Room[] rooms;
-    private Room prevRoom = null;
+    // story text of the custom action HIDDEN_ROOM of the demo world, encoded once
+    private static final byte[] KEY_FOUND =
+            "Du hast den Schlüssel in Raum2 gefunden!".getBytes(StandardCharsets.UTF_8);
+    // id of the session of the local player in a SessionStore
+    private static final long LOCAL_SESSION_ID = 0;
+
+    private final ActionRegistry actions = createActions();
+    // the latest version of the world, holds no replaced version
+    private final Supplier<World> world;
+    private MessageTable messages = MessageTable.GERMAN;
 
     /**
      * Game constructor
-     * creates all different rooms and adds them to the rooms array
+     * creates all different rooms and adds them to the world
+     * @throws IllegalStateException if an option points to a room which does not exist
      */
     public Game() {
-        Room firstRoom = new RoomBuilder(this, this, this)
+        TextTable texts = new TextTable();
+        Room firstRoom = new RoomBuilder(actions, texts)
                 .setName("Raum1")
                 .setRoomBackOptionIfAvailable(true)
+                .setHintOption(true)
                 .setQuitOption(true)
                 .addOption("Wechsle zu Raum 2.", "Raum2", Action.CHANGE_ROOM)
                 .addOption("Nehme Item 1 auf.", "Item1", Action.PICK_ITEM)
                 .addConditionalOption("Gehe in den versteckten Raum", "HiddenRoom",
-                        Action.CHANGE_ROOM, new OptionCondition() {
-                            @Override
-                            public boolean checkCondition(String[] items) {
-                                for (String item : items) {
-                                    if (item.equals("Schlüssel"))
-                                        return true;
-                                }
-                                return false;
-                            }
-                        })
+                        Action.CHANGE_ROOM, Conditions.hasItem("Schlüssel"))
                 .addOption("Wechsle zum Testraum.", "Testraum", Action.CHANGE_ROOM)
                 .build();
 
-        Room secondRoom = new RoomBuilder(this, this, this)
+        Room secondRoom = new RoomBuilder(actions, texts)
                 .setName("Raum2")
+                .setHintOption(true)
                 .setQuitOption(true)
                 .setRoomBackOptionIfAvailable(true)
                 .addOption("Wechsle zu Raum 1.", firstRoom)
@@ -42,129 +45,102 @@ public class Game implements ItemPicker, RoomSwitcher, ActionHandler {
                 .addOption("Wechsle zum Testraum.", "Testraum", Action.CHANGE_ROOM)
                 .build();
 
-        Room testRoom = new RoomBuilder(this, this, this)
+        Room testRoom = new RoomBuilder(actions, texts)
                 .setName("Testraum")
+                .setHintOption(true)
                 .setQuitOption(true)
                 .setRoomBackOptionIfAvailable(true)
                 .addOption("Go to Room1", firstRoom)
                 .build();
 
-        Room hiddenRoom = new RoomBuilder(this, this, this)
+        Room hiddenRoom = new RoomBuilder(actions, texts)
                 .setName("HiddenRoom")
+                .setHintOption(true)
                 .setQuitOption(true)
                 .setRoomBackOptionIfAvailable(true)
                 .addOption("Du bist im versteckten Raum", "HIDDEN_ROOM", Action.CUSTOM)
                 .build();
 
-        rooms = new Room[] {
+        world = new World(new Room[] {
                 firstRoom,
                 secondRoom,
                 testRoom,
                 hiddenRoom
-        };
+        }).versions();
     }
 
     /**
-     * starting the game by visiting the first room in the rooms array
+     * Game constructor
+     * loads all rooms from a world file in the text or the binary format, custom actions are handled by this game
+     * @param worldFile the path of the world file
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the world file contains errors
      */
-    public void start() {
-        Room room = rooms[0];
-        room.visit(false);
+    public Game(Path worldFile) throws IOException {
+        world = WorldCompiler.load(worldFile, actions).versions();
     }
 
     /**
-     * implementation from ItemPicker
-     * called from a room when an item is picked up by the user
-     * @param item the name of the item stored in the optionData of the Options object
+     * starting the game by running a GameEngine with a new session reading from System.in and writing to System.out
      */
-    @Override
-    public void pickItem(String item) {
-        if (pickedItemCount >= MAX_ITEMS) {
-            System.err.println("Max picked objects reached! Increase MAX_OBJECT in your Game impl!");
-            return;
-        }
-
-        if(isItemInList(item))
-            return;
-
-        pickedItems[pickedItemCount++] = item;
+    public void start() {
+        run(new GameSession(getWorld(), System.in, new OutputRenderer(System.out, OutputRenderer.consoleCharset())));
     }
 
-
     /**
-     * checks if an item is already picked up by the user
-     * @param item the item to check
-     * @return true if the item is already picked up
+     * starting the game like start, but the session is persisted in a SessionStore and resumed where it was left if
+     * it was played before, even if the game was killed
+     * @param store the store of the session, opened in the world of this game
+     * @throws IOException if the snapshot of the session can not be read
      */
-    private boolean isItemInList(String item) {
-        for (int i = 0; i < pickedItemCount; i++) {
-            if (pickedItems[i].equals(item))
-                return true;
-        }
-
-        return false;
+    public void start(SessionStore store) throws IOException {
+        run(store.openSession(LOCAL_SESSION_ID, System.in,
+                new OutputRenderer(System.out, OutputRenderer.consoleCharset())));
     }
 
     /**
-     * implementation of the item picker for returning all picked up items
-     * @return an array of all picked up items
+     * runs a session of this game until it ends
+     * @param session the session
      */
-    @Override
-    public String[] getAllItems() {
-        return pickedItemsCopy();
+    private void run(GameSession session) {
+        session.setMessages(messages);
+        GameEngine engine = new GameEngine(session);
+        engine.run();
     }
 
     /**
-     * copies all items from pickedItems into a new array to remove all null values
-     * @return a string array containing all picked up items without null values
+     * sets the language of the messages of the game started by start
+     * @param messages the message table
      */
-    private String[] pickedItemsCopy() {
-        String[] itemList = new String[pickedItemCount];
-        for (int i = 0; i < pickedItemCount; i++) {
-            itemList[i] = pickedItems[i];
-        }
-        return itemList;
+    public void setMessages(MessageTable messages) {
+        this.messages = messages;
     }
 
     /**
-     * implementation from RoomSwitcher to get the room object from its name
-     * @param to the name of the room switching to
-     * @return the room for the name
+     * getter for the world containing all rooms of this game
+     * the world can be shared by any number of sessions
+     * @return the world
      */
-    @Override
-    public Room SwitchRoom(String to) {
-        for (Room room : rooms) {
-            if (room.name.equals(to)) {
-                return room;
-            }
-        }
-        return null;
-    }
-
-    @Override
-    public void SetPrevRoom(Room prev) {
-        prevRoom = prev;
+    public World getWorld() {
+        return world.get();
     }
 
     /**
-     * returns the previously visited room
-     * @return the previous room
+     * getter for the registry of the custom actions of this game
+     * @return the action registry
      */
-    @Override
-    public Room GetPrevRoom() {
-        return prevRoom;
+    public ActionRegistry getActions() {
+        return actions;
     }
 
     /**
-     * implementation for the ActionHandler to handle custom actions
-     * @param action the data string stored in an options element
+     * creates the registry with all custom actions of the game
+     * custom actions of world files which are not registered do nothing
+     * @return the action registry
      */
-    @Override
-    public void handleAction(String action) {
-        if (action.equals("HIDDEN_ROOM")) {
-            System.out.println("Du hast den Schlüssel in Raum2 gefunden!");
-        } else if (action.equals("QUIT")) {
-            System.exit(0);
-        }
+    private static ActionRegistry createActions() {
+        ActionRegistry actions = new ActionRegistry((action, session) -> { });
+        actions.register("HIDDEN_ROOM", session -> session.getOutput().append(KEY_FOUND).newLine());
+        return actions;
     }
 }
@@ -0,0 +1,81 @@
+/**
+ * drives the game loop of a session
+ * switches the session to the room returned by Room.visit, so the call stack does not grow with every room change
+ */
+public class GameEngine {
+
+    private final GameSession session;
+
+    /**
+     * constructor for a game engine
+     * @param session the session to run, starts in the current room of the session
+     */
+    public GameEngine(GameSession session) {
+        this.session = session;
+    }
+
+    /**
+     * runs the game loop until the session ends
+     * visits the current room until an option with Action.CHANGE_ROOM is chosen, then switches to the returned room
+     * and visits it without printing the welcome message
+     * a session playing in a shared world leaves it when the loop ends, a persisted session writes a last snapshot
+     */
+    public void run() {
+        try {
+            boolean isSwitch = false;
+            Room currentRoom = session.getCurrentRoom();
+            while (currentRoom != null) {
+                Room nextRoom = currentRoom.visit(session, isSwitch);
+                if (nextRoom == null)
+                    break;
+
+                switchRoom(currentRoom, nextRoom);
+                // the session may have switched to a new version of the world and replaced the room
+                currentRoom = session.getCurrentRoom();
+                isSwitch = true;
+            }
+        } finally {
+            session.leaveSharedWorld();
+            session.getOutput().flush();
+            session.savePendingSnapshot();
+        }
+    }
+
+    /**
+     * executes a choice in the current room of the session without reading input, used for replaying journaled choices
+     * completed and scheduled actions are executed before the options are checked, like before every prompt of
+     * Room.visit, so a replayed choice selects the same option as the recorded one
+     * @param choice the index of the option in the available options of the current room
+     * @return false if the choice does not belong to an available option
+     */
+    public boolean applyChoice(int choice) {
+        session.runCompletedActions();
+        Room currentRoom = session.getCurrentRoom();
+        if (choice < 0 || choice >= currentRoom.getAvailableOptions(session))
+            return false;
+
+        Room nextRoom = currentRoom.choose(session, choice);
+        if (nextRoom != null)
+            switchRoom(currentRoom, nextRoom);
+        return true;
+    }
+
+    /**
+     * switches the session from a room to the next room
+     * @param currentRoom the room the player leaves
+     * @param nextRoom the room the player enters
+     */
+    private void switchRoom(Room currentRoom, Room nextRoom) {
+        currentRoom.visitOtherRoom(session, nextRoom);
+        session.setCurrentRoom(nextRoom);
+    }
+
+    /**
+     * getter for the session run by this engine
+     * @return the session
+     */
+    public GameSession getSession() {
+        return session;
+    }
+
+}
@@ -0,0 +1,307 @@
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * runtime metrics of all sessions in the process: room changes, picked up items, visits per room and the time needed
+ * for evaluating option conditions and rendering prompts
+ * metrics are only collected if the system property "textadventure.metrics" is true, ENABLED is a constant so the
+ * JIT removes the instrumentation when it is disabled
+ * all counters are LongAdders, so sessions on many threads record without contention
+ * start registers the metrics at JMX and dumps them to System.err every "textadventure.metrics.dump" seconds
+ */
+public class GameMetrics implements GameMetricsMBean {
+
+    public static final boolean ENABLED = Boolean.getBoolean("textadventure.metrics");
+
+    private static final GameMetrics INSTANCE = new GameMetrics();
+
+    private static final String OBJECT_NAME = "TextAdventureA:type=GameMetrics";
+    private static final int TOP_ROOM_COUNT = 10;
+
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder itemsPicked = new LongAdder();
+    private final LongAdder visits = new LongAdder();
+    private final Map<String, RoomStats> rooms = new ConcurrentHashMap<>();
+    private final LatencyHistogram conditionLatency = new LatencyHistogram();
+    private final LatencyHistogram promptLatency = new LatencyHistogram();
+
+    // sampled once per second by the metrics thread
+    private volatile double movesPerSecond = 0;
+    private long lastSampledMoves = 0;
+
+    private ScheduledExecutorService scheduler = null;
+
+    /**
+     * constructor for the single instance
+     */
+    private GameMetrics() {
+    }
+
+    /**
+     * returns the metrics of this process
+     * @return the metrics
+     */
+    public static GameMetrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * registers the metrics at the platform MBean server, samples the room changes per second and starts the periodic
+     * dump if "textadventure.metrics.dump" is a positive number of seconds
+     * does nothing if the metrics are disabled or already started
+     */
+    public static synchronized void start() {
+        if (!ENABLED || INSTANCE.scheduler != null)
+            return;
+
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("Metriken konnten nicht registriert werden: " + e.getMessage());
+        }
+
+        INSTANCE.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        INSTANCE.scheduler.scheduleAtFixedRate(INSTANCE::sample, 1, 1, TimeUnit.SECONDS);
+
+        int dumpSeconds = Integer.getInteger("textadventure.metrics.dump", 0);
+        if (dumpSeconds > 0)
+            INSTANCE.scheduler.scheduleAtFixedRate(() -> System.err.print(INSTANCE.dump()),
+                    dumpSeconds, dumpSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * counts a room change, called by the session
+     */
+    void recordMove() {
+        moves.increment();
+    }
+
+    /**
+     * counts a picked up item, called by the session
+     */
+    void recordItemPicked() {
+        itemsPicked.increment();
+    }
+
+    /**
+     * counts a visit of a room, called every time a room prompts the player
+     * @param room the visited room
+     */
+    void recordVisit(Room room) {
+        visits.increment();
+        statsOf(room).visits.increment();
+    }
+
+    /**
+     * records the time needed to evaluate the conditions of all options of a room
+     * @param room the room whose options were filtered
+     * @param nanos the duration in nanoseconds
+     */
+    void recordConditions(Room room, long nanos) {
+        conditionLatency.record(nanos);
+        RoomStats stats = statsOf(room);
+        stats.conditionNanos.add(nanos);
+        stats.conditionEvaluations.increment();
+    }
+
+    /**
+     * records the time needed to filter the options and render a prompt
+     * @param nanos the duration in nanoseconds
+     */
+    void recordPrompt(long nanos) {
+        promptLatency.record(nanos);
+    }
+
+    /**
+     * returns the counters of a room, creates them on the first visit
+     * rooms are identified by name, so a room decoded again by a LazyRoomSource keeps its counters
+     * @param room the room
+     * @return the counters of the room
+     */
+    private RoomStats statsOf(Room room) {
+        RoomStats stats = rooms.get(room.name);
+        return stats != null ? stats : rooms.computeIfAbsent(room.name, name -> new RoomStats());
+    }
+
+    /**
+     * computes the room changes per second since the last sample, called once per second by the metrics thread
+     */
+    private void sample() {
+        long current = moves.sum();
+        movesPerSecond = current - lastSampledMoves;
+        lastSampledMoves = current;
+    }
+
+    /**
+     * implementation from GameMetricsMBean for checking if metrics are collected
+     * @return true if metrics are collected
+     */
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    /**
+     * implementation from GameMetricsMBean for the number of room changes
+     * @return number of room changes
+     */
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    /**
+     * implementation from GameMetricsMBean for the room changes per second
+     * @return room changes per second
+     */
+    @Override
+    public double getMovesPerSecond() {
+        return movesPerSecond;
+    }
+
+    /**
+     * implementation from GameMetricsMBean for the number of picked up items
+     * @return number of picked up items
+     */
+    @Override
+    public long getItemsPicked() {
+        return itemsPicked.sum();
+    }
+
+    /**
+     * implementation from GameMetricsMBean for the number of room visits
+     * @return number of room visits
+     */
+    @Override
+    public long getVisits() {
+        return visits.sum();
+    }
+
+    /**
+     * implementation from GameMetricsMBean for the most visited rooms
+     * @return the rooms as "name=visits"
+     */
+    @Override
+    public String[] getHottestRooms() {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : topRooms(stats -> stats.visits.sum()))
+            result.add(entry.getKey() + "=" + entry.getValue());
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * implementation from GameMetricsMBean for the rooms with the slowest conditions
+     * @return the rooms as "name=nanoseconds/evaluations"
+     */
+    @Override
+    public String[] getSlowestConditionRooms() {
+        List<String> result = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : topRooms(stats -> stats.conditionNanos.sum())) {
+            RoomStats stats = rooms.get(entry.getKey());
+            long evaluations = stats == null ? 0 : stats.conditionEvaluations.sum();
+            result.add(entry.getKey() + "=" + entry.getValue() + "ns/" + evaluations);
+        }
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * implementation from GameMetricsMBean for the histogram of the condition evaluations
+     * @return the counts of the buckets
+     */
+    @Override
+    public long[] getConditionLatencyHistogram() {
+        return conditionLatency.getCounts();
+    }
+
+    /**
+     * implementation from GameMetricsMBean for the histogram of the rendered prompts
+     * @return the counts of the buckets
+     */
+    @Override
+    public long[] getPromptLatencyHistogram() {
+        return promptLatency.getCounts();
+    }
+
+    /**
+     * implementation from GameMetricsMBean for formatting all metrics
+     * @return the metrics as text
+     */
+    @Override
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Raumwechsel: ").append(getMoves())
+                .append(" (").append(getMovesPerSecond()).append("/s), Items: ").append(getItemsPicked())
+                .append(", Besuche: ").append(getVisits()).append('\n');
+        appendLatency(builder, "Bedingungen", conditionLatency);
+        appendLatency(builder, "Ausgabe", promptLatency);
+        builder.append("Meistbesuchte Räume: ").append(String.join(", ", getHottestRooms())).append('\n');
+        builder.append("Langsamste Bedingungen: ").append(String.join(", ", getSlowestConditionRooms())).append('\n');
+        return builder.toString();
+    }
+
+    /**
+     * implementation from GameMetricsMBean for removing all collected metrics
+     */
+    @Override
+    public void reset() {
+        moves.reset();
+        itemsPicked.reset();
+        visits.reset();
+        rooms.clear();
+        conditionLatency.reset();
+        promptLatency.reset();
+    }
+
+    /**
+     * appends the mean and some percentiles of a histogram
+     * @param builder the builder to append to
+     * @param name the name of the histogram
+     * @param histogram the histogram
+     */
+    private static void appendLatency(StringBuilder builder, String name, LatencyHistogram histogram) {
+        builder.append(name).append(": n=").append(histogram.getCount())
+                .append(" mittel=").append(histogram.getMeanNanos())
+                .append("ns p50<=").append(histogram.getPercentileNanos(50))
+                .append("ns p99<=").append(histogram.getPercentileNanos(99))
+                .append("ns\n");
+    }
+
+    /**
+     * returns the rooms with the largest value of a counter
+     * the values are read once before sorting, because sessions may still increment them
+     * @param counter the counter to sort by
+     * @return at most TOP_ROOM_COUNT rooms with the value of the counter, largest value first
+     */
+    private List<Map.Entry<String, Long>> topRooms(ToLongFunction<RoomStats> counter) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(rooms.size());
+        for (Map.Entry<String, RoomStats> entry : rooms.entrySet())
+            entries.add(Map.entry(entry.getKey(), counter.applyAsLong(entry.getValue())));
+
+        entries.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+        return entries.subList(0, Math.min(TOP_ROOM_COUNT, entries.size()));
+    }
+
+    /**
+     * counters of a single room
+     */
+    private static final class RoomStats {
+        final LongAdder visits = new LongAdder();
+        final LongAdder conditionNanos = new LongAdder();
+        final LongAdder conditionEvaluations = new LongAdder();
+    }
+
+}
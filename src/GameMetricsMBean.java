@@ -0,0 +1,71 @@
+/**
+ * management interface of GameMetrics, registered at the platform MBean server as "TextAdventureA:type=GameMetrics"
+ */
+public interface GameMetricsMBean {
+
+    /**
+     * checks if metrics are collected, set by the system property "textadventure.metrics"
+     * @return true if metrics are collected
+     */
+    boolean isEnabled();
+
+    /**
+     * getter for the number of room changes of all sessions
+     * @return number of room changes
+     */
+    long getMoves();
+
+    /**
+     * getter for the room changes per second measured over the last second
+     * @return room changes per second
+     */
+    double getMovesPerSecond();
+
+    /**
+     * getter for the number of picked up items of all sessions
+     * @return number of picked up items
+     */
+    long getItemsPicked();
+
+    /**
+     * getter for the number of room visits of all sessions
+     * @return number of room visits
+     */
+    long getVisits();
+
+    /**
+     * returns the most visited rooms
+     * @return the rooms as "name=visits", most visited first
+     */
+    String[] getHottestRooms();
+
+    /**
+     * returns the rooms spending the most time evaluating option conditions
+     * @return the rooms as "name=nanoseconds/evaluations", slowest first
+     */
+    String[] getSlowestConditionRooms();
+
+    /**
+     * returns the histogram of the time needed to evaluate all conditions of a room
+     * @return the counts, index i counts the durations from 2^i until 2^(i+1) - 1 nanoseconds
+     */
+    long[] getConditionLatencyHistogram();
+
+    /**
+     * returns the histogram of the time needed to render a prompt, without waiting for the input
+     * @return the counts, index i counts the durations from 2^i until 2^(i+1) - 1 nanoseconds
+     */
+    long[] getPromptLatencyHistogram();
+
+    /**
+     * formats all metrics like the periodic dump
+     * @return the metrics as text
+     */
+    String dump();
+
+    /**
+     * removes all collected metrics
+     */
+    void reset();
+
+}
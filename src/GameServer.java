@@ -0,0 +1,103 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * local socket front end for playing many sessions in one world at the same time
+ * every accepted connection gets its own GameSession which is run by a GameEngine on its own thread
+ * in multiplayer mode all sessions join the SharedWorldState of the world and are named "Spieler 1", "Spieler 2", ...
+ */
+public class GameServer {
+
+    private final Supplier<World> world;
+    private final int port;
+    private final boolean multiplayer;
+    private final MessageTable messages;
+    private final AtomicInteger playerCount = new AtomicInteger();
+    private final ExecutorService sessionExecutor = Executors.newCachedThreadPool();
+
+    /**
+     * constructor for a game server
+     * @param world the world shared by all sessions, new sessions start in its latest version
+     * @param port the port to listen on, only connections from the local machine are accepted
+     */
+    public GameServer(World world, int port) {
+        this(world, port, false);
+    }
+
+    /**
+     * constructor for a game server
+     * @param world the world shared by all sessions, new sessions start in its latest version
+     * @param port the port to listen on, only connections from the local machine are accepted
+     * @param multiplayer true if the players share the items of the world and see each other
+     */
+    public GameServer(World world, int port, boolean multiplayer) {
+        this(world, port, multiplayer, MessageTable.GERMAN);
+    }
+
+    /**
+     * constructor for a game server
+     * @param world the world shared by all sessions, new sessions start in its latest version
+     * @param port the port to listen on, only connections from the local machine are accepted
+     * @param multiplayer true if the players share the items of the world and see each other
+     * @param messages the messages of all sessions
+     */
+    public GameServer(World world, int port, boolean multiplayer, MessageTable messages) {
+        this(world.versions(), port, multiplayer, messages);
+    }
+
+    /**
+     * constructor for a game server
+     * @param world supplies the world new sessions start in, for example WorldReloader.getCurrent
+     * @param port the port to listen on, only connections from the local machine are accepted
+     * @param multiplayer true if the players share the items of the world and see each other
+     * @param messages the messages of all sessions
+     */
+    public GameServer(Supplier<World> world, int port, boolean multiplayer, MessageTable messages) {
+        this.world = world;
+        this.port = port;
+        this.multiplayer = multiplayer;
+        this.messages = messages;
+    }
+
+    /**
+     * accepts connections until the server socket fails and runs a session for each connection
+     * @throws IOException if the server socket can not be opened
+     */
+    public void run() throws IOException {
+        try (ServerSocket serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress())) {
+            System.out.println("Server gestartet auf Port " + serverSocket.getLocalPort());
+            while (!serverSocket.isClosed()) {
+                Socket socket = serverSocket.accept();
+                sessionExecutor.execute(() -> runSession(socket));
+            }
+        } finally {
+            sessionExecutor.shutdown();
+        }
+    }
+
+    /**
+     * runs a session reading from and writing to a socket until the session ends or the connection is closed
+     * @param socket the connection of the player
+     */
+    private void runSession(Socket socket) {
+        try (socket) {
+            OutputRenderer output = new OutputRenderer(socket.getOutputStream());
+            GameSession session = new GameSession(world.get(), socket.getInputStream(), output);
+            session.setMessages(messages);
+            if (multiplayer) {
+                session.setPlayerName("Spieler " + playerCount.incrementAndGet());
+                session.joinSharedWorld();
+            }
+            new GameEngine(session).run();
+        } catch (IOException e) {
+            System.err.println("Verbindung fehlgeschlagen: " + e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,612 @@
+import java.io.InputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * all state of a single player in a world
+ * holds the picked up items, the current and the previous room and the input and output of the player, so many
+ * sessions can share one World
+ * a session must only be used by one thread at a time
+ * if the world is replaced by a new version, the session switches to it at the next room change: rooms and items are
+ * mapped to the new world by their names, rooms and items which do not exist anymore are dropped
+ * a session can join the SharedWorldState of its world to play together with other sessions
+ */
+public class GameSession implements ItemPicker, RoomSwitcher {
+
+    // option data of Action.CHANGE_ROOM options for switching to the previous room
+    private static final String PREV_ROOM_KEYWORD = "PREV";
+
+    // number of rooms kept in the history of a session
+    private static final int HISTORY_CAPACITY = Integer.getInteger("textadventure.history", 32);
+    // number of rooms shown in the breadcrumbs before the current room
+    private static final int BREADCRUMB_LENGTH = 4;
+
+    private World world;
+    private Inventory inventory;
+    private Room currentRoom;
+    // the rooms the player came from, stored by their ids, so they stay valid if the room source evicts and reloads
+    // a room, the newest entry is the previous room
+    private final RoomHistory history = new RoomHistory(HISTORY_CAPACITY);
+    // number of history entries removed by the next room change, set if the player goes back
+    private int pendingBackSteps = 0;
+    // incremented every time an item is picked up or the previous room changes
+    private long stateVersion = 0;
+    private long moveCount = 0;
+    private long stepCount = 0;
+    // read by the scheduler thread, see scheduleAfterMillis
+    private volatile boolean quit = false;
+
+    // set if the session is persisted by a SessionStore
+    private SessionStore store = null;
+    private long sessionId = -1;
+    // true if choices were journaled since the last snapshot
+    private boolean journalPending = false;
+    private long snapshotStepCount = 0;
+
+    private final InputReader input;
+    private final OutputRenderer output;
+
+    // results of asynchronous custom actions, applied on the thread running the session before the next prompt
+    private final Queue<Consumer<GameSession>> completedActions = new ConcurrentLinkedQueue<>();
+    // events due after a number of chosen options, created with the first event, see scheduleAfterTurns
+    private TimingWheel turnEvents = null;
+
+    // set if the session plays together with other sessions, see joinSharedWorld
+    private SharedWorldState sharedState = null;
+    private String playerName = "Spieler";
+
+    // buffers used by Room.getAvailableOptions, sized for the room with the most options
+    Option[] availableOptions;
+    boolean[] conditionResults;
+    Room cachedRoom = null;
+    long cachedStateVersion = -1;
+    long cachedSharedVersion = -1;
+    int cachedOptionCount = 0;
+
+    /**
+     * constructor for a session starting in the start room of the world
+     * @param world the world to play in
+     * @param input the input of the player, read in the charset of the output
+     * @param output the renderer for all messages to the player
+     */
+    public GameSession(World world, InputStream input, OutputRenderer output) {
+        this.world = world;
+        this.inventory = new Inventory(world.getItems());
+        this.currentRoom = world.getStartRoom();
+        this.input = new InputReader(input, output.getCharset());
+        this.output = output;
+        this.availableOptions = new Option[world.getMaxOptionCount()];
+        this.conditionResults = new boolean[world.getMaxOptionCount()];
+    }
+
+    /**
+     * getter for the world of this session
+     * @return the world
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * getter for the room the player is currently in
+     * @return the current room
+     */
+    public Room getCurrentRoom() {
+        return currentRoom;
+    }
+
+    /**
+     * sets the room the player is currently in, called by the GameEngine after every room change
+     * switches to the latest version of the world, so the current room can be replaced by the same room of the new
+     * world, the GameEngine must continue with getCurrentRoom
+     * @param room the current room
+     */
+    void setCurrentRoom(Room room) {
+        if (sharedState != null)
+            sharedState.leave(currentRoom.id, this);
+        currentRoom = room;
+        World latest = world.getLatest();
+        if (latest != world)
+            switchWorld(latest);
+        if (sharedState != null)
+            sharedState.enter(currentRoom.id, this);
+        moveCount++;
+        if (GameMetrics.ENABLED)
+            GameMetrics.get().recordMove();
+
+        if (store != null && stepCount - snapshotStepCount >= store.getSnapshotInterval())
+            saveSnapshot();
+    }
+
+    /**
+     * moves the session to a new version of its world
+     * the current room, the history and the inventory are mapped by room and item names, if the current room does not
+     * exist anymore the session continues in the start room
+     * a shared session joins the shared state of the new world, which already contains the items taken in the old one
+     * @param next the new world
+     */
+    private void switchWorld(World next) {
+        RoomSource oldRooms = world.getRooms();
+        RoomSource newRooms = next.getRooms();
+
+        Room room = newRooms.get(currentRoom.name);
+        output.println(Message.WORLD_RELOADED);
+        if (room == null) {
+            output.append(Message.ROOM_REMOVED, currentRoom.encodedName).newLine();
+            room = next.getStartRoom();
+        }
+
+        // rooms next to a dropped room can become neighbours, the same room twice in a row is kept once
+        int[] historyIds = history.toArray();
+        history.clear();
+        for (int roomId : historyIds) {
+            int newId = newRooms.idOf(oldRooms.get(roomId).name);
+            if (newId >= 0 && newId != history.peek(1))
+                history.push(newId);
+        }
+        if (history.peek(1) == room.id)
+            history.drop(1);
+
+        Inventory newInventory = new Inventory(next.getItems());
+        for (String item : inventory.getAllItems()) {
+            int itemId = next.getItems().idOf(item);
+            if (itemId >= 0)
+                newInventory.add(itemId);
+        }
+
+        if (next.getMaxOptionCount() > availableOptions.length) {
+            availableOptions = new Option[next.getMaxOptionCount()];
+            conditionResults = new boolean[next.getMaxOptionCount()];
+        }
+        world = next;
+        if (sharedState != null)
+            sharedState = next.getSharedState();
+        inventory = newInventory;
+        currentRoom = room;
+        cachedRoom = null;
+        stateVersion++;
+    }
+
+    /**
+     * getter for the number of room changes in this session
+     * @return number of room changes
+     */
+    public long getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * counts a chosen option and appends it to the journal of the SessionStore if the session is persisted
+     * called by the room for every valid choice of the player before the option is executed
+     * @param choice the index of the option in the available options
+     */
+    void recordChoice(int choice) {
+        if (store != null) {
+            if (!journalPending) {
+                store.markJournalPending(sessionId);
+                journalPending = true;
+            }
+            store.journalChoice(sessionId, stepCount, choice);
+        }
+        stepCount++;
+    }
+
+    /**
+     * persists this session in a SessionStore, every chosen option is journaled and a snapshot is written regularly
+     * when the player changes the room
+     * @param store the store to persist the session in
+     * @param sessionId the id of the session in the store
+     */
+    void attach(SessionStore store, long sessionId) {
+        this.store = store;
+        this.sessionId = sessionId;
+        this.snapshotStepCount = stepCount;
+    }
+
+    /**
+     * writes a snapshot of this session to its SessionStore, must be called from the thread running the session
+     * @throws IllegalStateException if the session is not persisted or the snapshot can not be written
+     */
+    public void saveSnapshot() {
+        if (store == null)
+            throw new IllegalStateException("Die Sitzung wird nicht gespeichert!");
+
+        store.saveSnapshot(sessionId, this);
+        snapshotStepCount = stepCount;
+        journalPending = false;
+    }
+
+    /**
+     * writes a snapshot if choices were journaled since the last snapshot, called when the session ends, so the
+     * SessionStore can delete the journal segments of the session
+     */
+    void savePendingSnapshot() {
+        if (store != null && journalPending)
+            saveSnapshot();
+    }
+
+    /**
+     * restores the state of this session from a snapshot, a quit session is running again afterwards
+     * scheduled events are not part of a snapshot, events after turns are dropped
+     * the history only contains the previous room, restoreHistory restores the older rooms
+     * @param currentRoomId the id of the current room
+     * @param prevRoomId the id of the previous room or -1
+     * @param stepCount the number of chosen options
+     * @param moveCount the number of room changes
+     * @param inventoryWords the picked up items as returned by Inventory.toLongArray
+     */
+    void restore(int currentRoomId, int prevRoomId, long stepCount, long moveCount, long[] inventoryWords) {
+        if (sharedState != null)
+            sharedState.leave(currentRoom.id, this);
+        this.currentRoom = world.getRooms().get(currentRoomId);
+        if (sharedState != null)
+            sharedState.enter(currentRoom.id, this);
+        this.pendingBackSteps = 0;
+        history.clear();
+        if (prevRoomId >= 0)
+            history.push(prevRoomId);
+        this.stepCount = stepCount;
+        this.moveCount = moveCount;
+        this.snapshotStepCount = stepCount;
+        this.quit = false;
+        this.turnEvents = null;
+        inventory.restore(inventoryWords);
+        stateVersion++;
+    }
+
+    /**
+     * restores the history of this session from a snapshot, called after restore
+     * @param roomIds the room ids as returned by getHistoryRoomIds
+     */
+    void restoreHistory(int[] roomIds) {
+        history.restore(roomIds);
+        stateVersion++;
+    }
+
+    /**
+     * returns the history for snapshots
+     * @return the ids of the rooms the player came from, the oldest room first
+     */
+    int[] getHistoryRoomIds() {
+        return history.toArray();
+    }
+
+    /**
+     * returns the picked up items as bits for snapshots
+     * @return the bits of the inventory
+     */
+    long[] getInventoryWords() {
+        return inventory.toLongArray();
+    }
+
+    /**
+     * getter for the number of options chosen in this session
+     * @return number of chosen options
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * ends the session, the GameEngine stops after the current room returns
+     */
+    public void quit() {
+        quit = true;
+    }
+
+    /**
+     * starts playing together with the other sessions of the shared state of the world: items picked up by any player
+     * are gone for all players and the players see each other
+     * does nothing if the session already joined
+     */
+    public void joinSharedWorld() {
+        if (sharedState != null)
+            return;
+
+        sharedState = world.getSharedState();
+        sharedState.enter(currentRoom.id, this);
+        cachedRoom = null;
+    }
+
+    /**
+     * stops playing together with other sessions, the player is removed from its room, called by the GameEngine when
+     * the session ends
+     */
+    public void leaveSharedWorld() {
+        if (sharedState == null)
+            return;
+
+        sharedState.leave(currentRoom.id, this);
+        sharedState = null;
+        cachedRoom = null;
+    }
+
+    /**
+     * getter for the shared state the session plays in
+     * @return the shared state or null if the session plays alone
+     */
+    SharedWorldState getSharedState() {
+        return sharedState;
+    }
+
+    /**
+     * getter for the name other players see
+     * @return the name of the player
+     */
+    public String getPlayerName() {
+        return playerName;
+    }
+
+    /**
+     * sets the name other players see
+     * @param playerName the name of the player
+     */
+    public void setPlayerName(String playerName) {
+        this.playerName = playerName;
+    }
+
+    /**
+     * checks if the session ended
+     * @return true if quit was called
+     */
+    public boolean isQuit() {
+        return quit;
+    }
+
+    /**
+     * queues the result of an asynchronous custom action, can be called from any thread
+     * results queued after the session ended are dropped
+     * @param result the change to apply to the session
+     */
+    void completeAction(Consumer<GameSession> result) {
+        completedActions.add(result);
+    }
+
+    /**
+     * schedules a custom action after a number of chosen options of this session, for example an item which expires
+     * the action is executed on the thread running the session before the prompt after the last of the options
+     * @param turns the number of chosen options until the action is executed
+     * @param handler the handler of the action, for example the ActionRegistry of the game
+     * @param action the name of the action passed to the handler
+     * @return the event for cancelling the action
+     */
+    public ScheduledEvent scheduleAfterTurns(int turns, ActionHandler handler, String action) {
+        if (turnEvents == null)
+            turnEvents = new TimingWheel(stepCount);
+        return turnEvents.schedule(turns, () -> handler.handleAction(action, this));
+    }
+
+    /**
+     * schedules a custom action after a time, for example a door which closes again
+     * the action is executed on the thread running the session before the next prompt after the time, the time is
+     * counted by the shared EventScheduler, actions due after the session ended are dropped
+     * @param delayMillis the time until the action is executed in milliseconds
+     * @param handler the handler of the action, for example the ActionRegistry of the game
+     * @param action the name of the action passed to the handler
+     * @return the event for cancelling the action
+     */
+    public ScheduledEvent scheduleAfterMillis(long delayMillis, ActionHandler handler, String action) {
+        return EventScheduler.get().schedule(delayMillis, () -> {
+            if (!quit)
+                completeAction(session -> handler.handleAction(action, session));
+        });
+    }
+
+    /**
+     * applies the results of all completed asynchronous custom actions and executes the actions scheduled for the
+     * current turn, called by the room before every prompt
+     */
+    void runCompletedActions() {
+        if (turnEvents != null)
+            turnEvents.advance(stepCount);
+
+        Consumer<GameSession> result;
+        while ((result = completedActions.poll()) != null)
+            result.accept(this);
+    }
+
+    /**
+     * sets the language of all messages to the player
+     * @param messages the message table
+     */
+    public void setMessages(MessageTable messages) {
+        output.setMessages(messages);
+    }
+
+    /**
+     * getter for the reader of the input of the player
+     * @return the input reader of this session
+     */
+    InputReader getInput() {
+        return input;
+    }
+
+    /**
+     * getter for the renderer for all messages to the player
+     * messages are buffered until the next prompt or the end of the session
+     * @return the output renderer of this session
+     */
+    public OutputRenderer getOutput() {
+        return output;
+    }
+
+    /**
+     * implementation from ItemPicker
+     * @param item the name of the item stored in the optionData of the Options object
+     */
+    @Override
+    public void pickItem(String item) {
+        if (inventory.add(item)) {
+            stateVersion++;
+            if (GameMetrics.ENABLED)
+                GameMetrics.get().recordItemPicked();
+        }
+    }
+
+    /**
+     * removes an item from the inventory, for example when it expires
+     * @param item the name of the item
+     * @return true if the item was picked up before
+     */
+    public boolean dropItem(String item) {
+        int itemId = world.getItems().idOf(item);
+        if (itemId < 0 || !inventory.remove(itemId))
+            return false;
+
+        stateVersion++;
+        return true;
+    }
+
+    /**
+     * implementation of the item picker for returning all picked up items
+     * @return an array of all picked up items, shared until the next item is picked up
+     */
+    @Override
+    public String[] getAllItems() {
+        return inventory.getAllItems();
+    }
+
+    /**
+     * implementation of the item picker for checking a single item
+     * @param item the item to check
+     * @return true if the item is already picked up by the player
+     */
+    @Override
+    public boolean hasItem(String item) {
+        return inventory.hasItem(item);
+    }
+
+    /**
+     * implementation of the item picker for counting the picked up items
+     * @return number of picked up items
+     */
+    @Override
+    public int getItemCount() {
+        return inventory.getItemCount();
+    }
+
+    /**
+     * implementation of the item picker for querying the picked up items without copying them
+     * @return a read-only view of the inventory
+     */
+    @Override
+    public InventoryView getInventory() {
+        return inventory;
+    }
+
+    /**
+     * implementation of the item picker for invalidating cached option conditions
+     * @return the version of the picked up items and the previous room
+     */
+    @Override
+    public long getStateVersion() {
+        return stateVersion;
+    }
+
+    /**
+     * implementation from RoomSwitcher to get the room object from its name
+     * the keyword "PREV" goes back one room, see goBack
+     * @param to the name of the room switching to
+     * @return the room for the name
+     */
+    @Override
+    public Room SwitchRoom(String to) {
+        if (to.equals(PREV_ROOM_KEYWORD))
+            return goBack(1);
+
+        pendingBackSteps = 0;
+        return world.getRooms().get(to);
+    }
+
+    /**
+     * returns the room with the given id in the world of this session, used for options whose target room was
+     * resolved when the world was compiled
+     * @param roomId the id of the room switching to
+     * @return the room
+     */
+    Room switchRoom(int roomId) {
+        pendingBackSteps = 0;
+        return world.getRooms().get(roomId);
+    }
+
+    /**
+     * returns a room of the history to switch to, the next room change removes the room and all newer rooms from the
+     * history instead of adding the room the player leaves, so going back repeatedly walks back along the path
+     * @param steps the number of rooms to go back, 1 for the previous room
+     * @return the room or null if the history has less rooms
+     */
+    public Room goBack(int steps) {
+        int roomId = history.peek(steps);
+        if (roomId < 0)
+            return null;
+
+        pendingBackSteps = steps;
+        return world.getRooms().get(roomId);
+    }
+
+    /**
+     * implementation from RoomSwitcher to store the previously visited room
+     * called on every room change, the room is added to the history unless the player goes back
+     * @param prev room previously visited
+     */
+    @Override
+    public void SetPrevRoom(Room prev) {
+        int prevId = history.peek(1);
+        if (pendingBackSteps > 0) {
+            history.drop(pendingBackSteps);
+            pendingBackSteps = 0;
+        } else if (prev == null) {
+            history.clear();
+        } else {
+            history.push(prev.id);
+        }
+        if (history.peek(1) != prevId)
+            stateVersion++;
+    }
+
+    /**
+     * returns the previously visited room
+     * the room is requested from the room source of the world, so it may be loaded again
+     * @return the previous room
+     */
+    @Override
+    public Room GetPrevRoom() {
+        int prevRoomId = history.peek(1);
+        return prevRoomId < 0 ? null : world.getRooms().get(prevRoomId);
+    }
+
+    /**
+     * returns the id of the previously visited room without requesting the room from the room source
+     * @return the id of the previous room or -1 if there is none
+     */
+    public int getPrevRoomId() {
+        return history.peek(1);
+    }
+
+    /**
+     * getter for the number of rooms the player can go back
+     * @return the number of rooms in the history
+     */
+    public int getHistorySize() {
+        return history.size();
+    }
+
+    /**
+     * renders the last rooms of the history and the current room, for example "Raum1 > Raum2 > Raum3"
+     * older rooms are shortened to "...", the names are appended by id without loading the rooms
+     * @param out the renderer to append the breadcrumbs to
+     */
+    void appendBreadcrumbs(OutputRenderer out) {
+        int count = Math.min(history.size(), BREADCRUMB_LENGTH);
+        if (count < history.size())
+            out.append("... > ");
+        RoomSource rooms = world.getRooms();
+        for (int steps = count; steps > 0; steps--) {
+            rooms.appendName(history.peek(steps), out);
+            out.append(" > ");
+        }
+        out.append(currentRoom.encodedName);
+    }
+
+}
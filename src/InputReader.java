@@ -0,0 +1,213 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * reads the choices of a player line by line directly from a byte buffer
+ * a line which is not a number can be resolved as a typed command with resolveCommand
+ * one reader is used for the whole session, so no input is lost between prompts and no objects are allocated per line
+ * typed commands in another charset than UTF-8 are converted to UTF-8 before they are resolved, numbers are read in
+ * any charset compatible with ASCII
+ */
+public class InputReader {
+
+    // returned by readChoice if the input is closed
+    public static final int END_OF_INPUT = -1;
+    // returned by readChoice if the line is not a number
+    public static final int NO_NUMBER = -2;
+    // returned by readChoice if the line is a negative number, which belongs to no option
+    public static final int NEGATIVE_NUMBER = -3;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream input;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPosition = 0;
+    private int bufferLength = 0;
+
+    // the last line read without the line break, grows if a longer line is read
+    private byte[] line = new byte[128];
+    private int lineLength = 0;
+
+    // null if the input is UTF-8 and typed commands are resolved as they are
+    private final CharsetDecoder decoder;
+    private final CharsetEncoder encoder;
+    // reused for the conversion of typed commands, grow with the line
+    private CharBuffer decoded;
+    private ByteBuffer encoded;
+
+    /**
+     * constructor for an input reader for UTF-8 input
+     * @param input the input of the player
+     */
+    public InputReader(InputStream input) {
+        this(input, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * constructor for an input reader
+     * @param input the input of the player
+     * @param charset the charset the player types in, for example the charset of the console
+     */
+    public InputReader(InputStream input, Charset charset) {
+        this.input = input;
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            decoder = null;
+            encoder = null;
+        } else {
+            decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            encoder = StandardCharsets.UTF_8.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+    }
+
+    /**
+     * reads the next non empty line and parses it as the number of an option
+     * leading and trailing whitespace is ignored, an io error is handled like the end of the input
+     * @return the number, END_OF_INPUT if there is no more input, NEGATIVE_NUMBER if the number is negative or
+     *         NO_NUMBER if the line is not a number
+     */
+    public int readChoice() {
+        do {
+            if (!readLine())
+                return END_OF_INPUT;
+        } while (isBlankLine());
+
+        return parseChoice();
+    }
+
+    /**
+     * resolves the last line read by readChoice as a typed command like "nimm Schlüssel"
+     * the line is converted to UTF-8 if necessary and normalized in place
+     * @param commands the command index of the current room
+     * @param messages the message table of the session
+     * @param availableOptions the available options of the room
+     * @param availableCount the number of available options
+     * @return the index of the option in the available options, CommandIndex.UNKNOWN or CommandIndex.NOT_AVAILABLE
+     */
+    public int resolveCommand(CommandIndex commands, MessageTable messages, Option[] availableOptions,
+                              int availableCount) {
+        if (decoder != null)
+            convertLineToUtf8();
+        lineLength = CommandTrie.normalize(line, lineLength);
+        return commands.resolve(line, lineLength, messages, availableOptions, availableCount);
+    }
+
+    /**
+     * reads the next line into the line buffer
+     * @return false if the input ended before any byte was read
+     */
+    private boolean readLine() {
+        lineLength = 0;
+        boolean readAnything = false;
+        while (true) {
+            if (bufferPosition >= bufferLength && !fillBuffer())
+                return readAnything;
+
+            byte b = buffer[bufferPosition++];
+            readAnything = true;
+            if (b == '\n')
+                return true;
+
+            if (lineLength >= line.length) {
+                byte[] newLine = new byte[line.length * 2];
+                System.arraycopy(line, 0, newLine, 0, lineLength);
+                line = newLine;
+            }
+            line[lineLength++] = b;
+        }
+    }
+
+    /**
+     * converts the line buffer from the charset of the input to UTF-8
+     */
+    private void convertLineToUtf8() {
+        if (decoded == null || decoded.capacity() < lineLength) {
+            decoded = CharBuffer.allocate(line.length);
+            encoded = ByteBuffer.allocate(line.length * 3);
+        }
+        decoded.clear();
+        encoded.clear();
+        decoder.reset().decode(ByteBuffer.wrap(line, 0, lineLength), decoded, true);
+        decoder.flush(decoded);
+        decoded.flip();
+        encoder.reset().encode(decoded, encoded, true);
+        encoder.flush(encoded);
+
+        lineLength = encoded.position();
+        if (lineLength > line.length)
+            line = new byte[encoded.capacity()];
+        System.arraycopy(encoded.array(), 0, line, 0, lineLength);
+    }
+
+    /**
+     * reads the next bytes from the input into the buffer
+     * @return false if the input ended
+     */
+    private boolean fillBuffer() {
+        try {
+            bufferLength = input.read(buffer, 0, buffer.length);
+        } catch (IOException e) {
+            bufferLength = -1;
+        }
+        bufferPosition = 0;
+        return bufferLength > 0;
+    }
+
+    /**
+     * checks if the line buffer only contains whitespace
+     * @return true if the line is blank
+     */
+    private boolean isBlankLine() {
+        for (int i = 0; i < lineLength; i++) {
+            if (!isWhitespace(line[i]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * parses the line buffer as a number, numbers too large for an int are returned as Integer.MAX_VALUE
+     * @return the number, NEGATIVE_NUMBER or NO_NUMBER
+     */
+    private int parseChoice() {
+        int start = 0;
+        int end = lineLength;
+        while (isWhitespace(line[start]))
+            start++;
+        while (isWhitespace(line[end - 1]))
+            end--;
+
+        boolean negative = line[start] == '-' && end - start > 1;
+        if (negative)
+            start++;
+
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            byte b = line[i];
+            if (b < '0' || b > '9')
+                return NO_NUMBER;
+            value = Math.min(value * 10 + (b - '0'), Integer.MAX_VALUE);
+        }
+        return negative && value > 0 ? NEGATIVE_NUMBER : (int) value;
+    }
+
+    /**
+     * checks if a byte is a whitespace including the carriage return of windows line breaks
+     * @param b the byte to check
+     * @return true if the byte is a whitespace
+     */
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+}
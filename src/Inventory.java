@@ -0,0 +1,154 @@
+/**
+ * stores all picked up items of a player as bits indexed by the item ids of an ItemTable
+ * picking and checking an item are constant time and there is no limit for the number of items
+ * the bits are stored in 64 bit words, so compiled conditions can test many items with one mask
+ */
+public class Inventory implements InventoryView {
+
+    private final ItemTable items;
+    // bit i of word i / 64 is set if the item with id i is picked up
+    private final long[] words;
+    private int pickedItemCount = 0;
+
+    // array of all picked up items, rebuilt on the first getAllItems call after an item was picked up
+    private String[] itemArray = new String[0];
+    private boolean itemArrayValid = true;
+
+    /**
+     * constructor for an empty inventory
+     * @param items the item table for resolving item names to ids
+     */
+    public Inventory(ItemTable items) {
+        this.items = items;
+        this.words = new long[(items.size() + 63) >>> 6];
+    }
+
+    /**
+     * adds an item to the inventory
+     * @param item the name of the item
+     * @return true if the item was not picked up before
+     * @throws IllegalArgumentException if the item is not in the item table
+     */
+    public boolean add(String item) {
+        int id = items.idOf(item);
+        if (id < 0)
+            throw new IllegalArgumentException("Item " + item + " nicht gefunden!");
+        return add(id);
+    }
+
+    /**
+     * adds an item to the inventory
+     * @param itemId the id of the item
+     * @return true if the item was not picked up before
+     */
+    public boolean add(int itemId) {
+        long bit = 1L << itemId;
+        if ((words[itemId >>> 6] & bit) != 0)
+            return false;
+
+        words[itemId >>> 6] |= bit;
+        pickedItemCount++;
+        itemArrayValid = false;
+        return true;
+    }
+
+    /**
+     * removes an item from the inventory, for example when an item expires
+     * @param itemId the id of the item
+     * @return true if the item was picked up before
+     */
+    public boolean remove(int itemId) {
+        long bit = 1L << itemId;
+        if ((words[itemId >>> 6] & bit) == 0)
+            return false;
+
+        words[itemId >>> 6] &= ~bit;
+        pickedItemCount--;
+        itemArrayValid = false;
+        return true;
+    }
+
+    /**
+     * checks if an item is picked up
+     * @param item the name of the item
+     * @return true if the item is picked up
+     */
+    @Override
+    public boolean hasItem(String item) {
+        int id = items.idOf(item);
+        return id >= 0 && hasItem(id);
+    }
+
+    /**
+     * checks if an item is picked up
+     * @param itemId the id of the item
+     * @return true if the item is picked up
+     */
+    @Override
+    public boolean hasItem(int itemId) {
+        return (words[itemId >>> 6] & (1L << itemId)) != 0;
+    }
+
+    /**
+     * returns 64 bits of the inventory
+     * @param index the index of the word, bit j of the word belongs to the item with id index * 64 + j
+     * @return the word or 0 if there is no item with an id in the range of the word
+     */
+    @Override
+    public long getItemWord(int index) {
+        return index < words.length ? words[index] : 0;
+    }
+
+    /**
+     * getter for the number of picked up items
+     * @return number of picked up items
+     */
+    @Override
+    public int getItemCount() {
+        return pickedItemCount;
+    }
+
+    /**
+     * returns all picked up items ordered by their id
+     * the array is only rebuilt if an item was picked up or removed since the last call, it is shared and must not be
+     * modified
+     * @return an array of all picked up items
+     */
+    @Override
+    public String[] getAllItems() {
+        if (!itemArrayValid) {
+            String[] newItemArray = new String[pickedItemCount];
+            int index = 0;
+            for (int w = 0; w < words.length; w++) {
+                for (long word = words[w]; word != 0; word &= word - 1)
+                    newItemArray[index++] = items.nameOf((w << 6) + Long.numberOfTrailingZeros(word));
+            }
+
+            itemArray = newItemArray;
+            itemArrayValid = true;
+        }
+        return itemArray;
+    }
+
+    /**
+     * returns the picked up items as bits, bit i of word i / 64 is set if the item with id i is picked up
+     * @return a copy of the bits of all picked up items
+     */
+    public long[] toLongArray() {
+        return words.clone();
+    }
+
+    /**
+     * replaces all picked up items with the items of a bit array created by toLongArray
+     * @param words the bits of all picked up items
+     */
+    public void restore(long[] words) {
+        pickedItemCount = 0;
+        for (int i = 0; i < this.words.length; i++) {
+            this.words[i] = i < words.length ? words[i] : 0;
+            pickedItemCount += Long.bitCount(this.words[i]);
+        }
+        itemArrayValid = false;
+    }
+
+}
@@ -0,0 +1,41 @@
+/**
+ * read-only view of the picked up items of a player
+ * passed to an OptionCondition, so a condition can check single items without copying the inventory
+ */
+public interface InventoryView {
+
+    /**
+     * checks if an item is picked up
+     * @param item the name of the item
+     * @return true if the item is picked up
+     */
+    boolean hasItem(String item);
+
+    /**
+     * checks if an item is picked up
+     * @param itemId the id of the item in the ItemTable of the game
+     * @return true if the item is picked up
+     */
+    boolean hasItem(int itemId);
+
+    /**
+     * returns 64 bits of the inventory, used by compiled conditions to test many items at once
+     * @param index the index of the word, bit j of the word is set if the item with id index * 64 + j is picked up
+     * @return the word or 0 if there is no item with an id in the range of the word
+     */
+    long getItemWord(int index);
+
+    /**
+     * returns the number of picked up items
+     * @return number of picked up items
+     */
+    int getItemCount();
+
+    /**
+     * returns all picked up items
+     * the array is shared and must not be modified
+     * @return a string array of all picked up items
+     */
+    String[] getAllItems();
+
+}
@@ -12,4 +12,30 @@ public interface ItemPicker {
      */
     String[] getAllItems();
 
+    /**
+     * checks if an item is picked up without creating an array of all items
+     * @param item the name of the item
+     * @return true if the item is picked up
+     */
+    boolean hasItem(String item);
+
+    /**
+     * returns the number of picked up items without creating an array of all items
+     * @return number of picked up items
+     */
+    int getItemCount();
+
+    /**
+     * called from a room to receive a read-only view of all picked up items which is passed to the option conditions
+     * @return a read-only view of the inventory
+     */
+    InventoryView getInventory();
+
+    /**
+     * called from a room to check if cached option conditions are still valid
+     * the version changes every time an item is picked up or the previous room changes
+     * @return the current version of the state the option conditions depend on
+     */
+    long getStateVersion();
+
 }
\ No newline at end of file
@@ -0,0 +1,94 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * table of all item names of a game
+ * every item name is mapped to an integer id, so an inventory can store picked up items as bits instead of strings
+ * the names are also encoded to UTF-8 once, so messages about items are rendered without encoding the names again
+ * the table is filled once when the world is created and only read afterwards, so it can be shared by all sessions
+ */
+public class ItemTable {
+
+    private final HashMap<String, Integer> idsByName = new HashMap<>();
+    private final ArrayList<String> names = new ArrayList<>();
+    private final ArrayList<byte[]> encodedNames = new ArrayList<>();
+
+    /**
+     * constructor for an item table containing the items of all options with Action.PICK_ITEM in the given rooms
+     * the ids are assigned in the order the items appear in the rooms
+     * @param rooms the rooms of the game
+     */
+    public ItemTable(Room[] rooms) {
+        for (Room room : rooms) {
+            for (Option option : room.options) {
+                if (option.getOptionAction() == Action.PICK_ITEM)
+                    intern(option.getOptionData());
+            }
+        }
+    }
+
+    /**
+     * constructor for an item table containing the given items
+     * the ids are assigned in the order of the array, duplicates get the id of their first occurrence
+     * @param names the names of all items
+     */
+    public ItemTable(String[] names) {
+        for (String name : names)
+            intern(name);
+    }
+
+    /**
+     * returns the id of an item and assigns a new id if the item is not in the table yet
+     * @param name the name of the item
+     * @return the id of the item
+     */
+    private int intern(String name) {
+        Integer id = idsByName.get(name);
+        if (id != null)
+            return id;
+
+        int newId = names.size();
+        names.add(name);
+        encodedNames.add(name.getBytes(StandardCharsets.UTF_8));
+        idsByName.put(name, newId);
+        return newId;
+    }
+
+    /**
+     * returns the id of an item
+     * @param name the name of the item
+     * @return the id of the item or -1 if the item is not in the table
+     */
+    public int idOf(String name) {
+        Integer id = idsByName.get(name);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * returns the name of an item
+     * @param id the id of the item
+     * @return the name of the item
+     */
+    public String nameOf(int id) {
+        return names.get(id);
+    }
+
+    /**
+     * returns the name of an item encoded to UTF-8
+     * @param id the id of the item
+     * @return the encoded name, must not be changed
+     */
+    public byte[] encodedNameOf(int id) {
+        return encodedNames.get(id);
+    }
+
+    /**
+     * getter for the number of items in the table
+     * @return number of items
+     */
+    public int size() {
+        return names.size();
+    }
+
+}
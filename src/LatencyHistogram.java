@@ -0,0 +1,96 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * histogram of durations in nanoseconds with one bucket per power of two
+ * recording only increments a LongAdder, so many sessions can record into the same histogram without contention
+ */
+public class LatencyHistogram {
+
+    // bucket i counts durations from 2^i until 2^(i+1) - 1 nanoseconds, the last bucket counts all longer durations
+    static final int BUCKET_COUNT = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder totalNanos = new LongAdder();
+
+    /**
+     * constructor for an empty histogram
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    /**
+     * records a duration
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        int bucket = 63 - Long.numberOfLeadingZeros(Math.max(nanos, 1));
+        buckets[Math.min(bucket, BUCKET_COUNT - 1)].increment();
+        totalNanos.add(nanos);
+    }
+
+    /**
+     * returns the number of recorded durations of every bucket
+     * @return the counts, index i counts the durations from 2^i until 2^(i+1) - 1 nanoseconds
+     */
+    public long[] getCounts() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            counts[i] = buckets[i].sum();
+        return counts;
+    }
+
+    /**
+     * returns the number of recorded durations
+     * @return number of durations
+     */
+    public long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets)
+            count += bucket.sum();
+        return count;
+    }
+
+    /**
+     * returns the mean of all recorded durations
+     * @return the mean in nanoseconds or 0 if nothing is recorded
+     */
+    public long getMeanNanos() {
+        long count = getCount();
+        return count == 0 ? 0 : totalNanos.sum() / count;
+    }
+
+    /**
+     * estimates a percentile of the recorded durations by the upper bound of the bucket containing it
+     * @param percentile the percentile between 0 and 100
+     * @return the estimated duration in nanoseconds or 0 if nothing is recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] counts = getCounts();
+        long count = 0;
+        for (long c : counts)
+            count += c;
+        if (count == 0)
+            return 0;
+
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank)
+                return (1L << (i + 1)) - 1;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * removes all recorded durations, durations recorded at the same time may be lost
+     */
+    public void reset() {
+        for (LongAdder bucket : buckets)
+            bucket.reset();
+        totalNanos.reset();
+    }
+
+}
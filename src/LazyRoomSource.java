@@ -0,0 +1,114 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * room source which decodes the rooms of a BinaryWorld on first access
+ * decoded rooms are kept in a bounded cache, when it is full the least recently used room is evicted and decoded again
+ * on the next access
+ * the cache is split into segments with their own lock, so sessions in unrelated rooms rarely wait for each other
+ */
+public class LazyRoomSource implements RoomSource {
+
+    private static final int SEGMENT_COUNT = 16;
+
+    private final BinaryWorld binaryWorld;
+    private final ActionRegistry actions;
+    private final ItemTable items;
+    private final Map<Integer, Room>[] segments;
+
+    /**
+     * constructor for a lazy room source
+     * @param binaryWorld the world to decode the rooms from
+     * @param actions the registry of the custom actions of all rooms
+     * @param items the item table of the world, the conditions of decoded rooms are linked to it
+     * @param capacity the maximum number of decoded rooms kept in the cache
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public LazyRoomSource(BinaryWorld binaryWorld, ActionRegistry actions, ItemTable items, int capacity) {
+        this.binaryWorld = binaryWorld;
+        this.actions = actions;
+        this.items = items;
+
+        int segmentCapacity = Math.max(1, capacity / SEGMENT_COUNT);
+        segments = new Map[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, Room> eldest) {
+                    return size() > segmentCapacity;
+                }
+            };
+        }
+    }
+
+    /**
+     * returns the room with the given id, decodes it if it is not in the cache
+     * @param id the id of the room
+     * @return the room with this id
+     */
+    @Override
+    public Room get(int id) {
+        Map<Integer, Room> segment = segments[id & (SEGMENT_COUNT - 1)];
+        synchronized (segment) {
+            Room room = segment.get(id);
+            if (room == null) {
+                room = binaryWorld.buildRoom(id, actions);
+                room.id = id;
+                room.link(items);
+                segment.put(id, room);
+            }
+            return room;
+        }
+    }
+
+    /**
+     * returns the room with the given name using the hash table of the binary world
+     * @param name the name of the room
+     * @return the room or null if no room with this name exists
+     */
+    @Override
+    public Room get(String name) {
+        int id = idOf(name);
+        return id < 0 ? null : get(id);
+    }
+
+    /**
+     * returns the id of the room with the given name without decoding the room
+     * @param name the name of the room
+     * @return the id or -1 if no room with this name exists
+     */
+    @Override
+    public int idOf(String name) {
+        return binaryWorld.findRoom(name);
+    }
+
+    /**
+     * appends the encoded name of a room from the string data of the binary world, without decoding the room and
+     * without locking the cache
+     * @param id the id of the room
+     * @param out the renderer
+     */
+    @Override
+    public void appendName(int id, OutputRenderer out) {
+        binaryWorld.appendRoomName(id, out);
+    }
+
+    /**
+     * getter for the number of rooms
+     * @return number of rooms
+     */
+    @Override
+    public int size() {
+        return binaryWorld.getRoomCount();
+    }
+
+    /**
+     * computes the fingerprint of the room names from the encoded names of the binary world without decoding rooms
+     * @return the fingerprint
+     */
+    @Override
+    public long fingerprint() {
+        return binaryWorld.fingerprintRoomNames();
+    }
+
+}
@@ -0,0 +1,48 @@
+/**
+ * Enum containing all texts the game prints to a player, the text of a message is taken from the MessageTable of the
+ * session, the German default text is stored here
+ * "{}" in a text is replaced by an argument, for example a room name
+ */
+public enum Message {
+    WELCOME("Du bist in Raum {}"),
+    SWITCH_ROOM("Du wechselst vom {} in {}"),
+    PATH("Dein Weg: "),
+    CHOOSE_OPTION("Wähle eine Option:"),
+    END_OF_INPUT("Die Eingabe ist nicht mehr verfügbar!"),
+    UNKNOWN_COMMAND("Die Eingabe wurde weder als Zahl noch als Befehl erkannt!"),
+    OPTION_NOT_AVAILABLE("Diese Option ist gerade nicht verfügbar!"),
+    ENTER_NUMBER("Bitte gib die Nummer der Option ein!"),
+    NO_OPTION("Die eingegebene Zahl gehört zu keiner Option!"),
+    ITEM_PICKED("Du hast das Item {} aufgenommen."),
+    ALL_ITEMS("Deine aufgesammelten Items sind: "),
+    STAY_IN_ROOM("Du bleibst in Raum {}"),
+    ITEM_TAKEN("Das Item {} hat schon jemand anderes aufgenommen."),
+    PLAYERS_HERE("Hier sind auch: "),
+    ACTION_FAILED("Die Aktion {} ist fehlgeschlagen!"),
+    WORLD_RELOADED("Die Welt wurde aktualisiert."),
+    ROOM_REMOVED("Den Raum {} gibt es nicht mehr, du kehrst zum Start zurück."),
+    HINT_ITEM_HERE("Tipp: Nimm das Item {} hier auf."),
+    HINT_NEXT_OPTION("Tipp: Wähle \"{}\", im Raum {} findest du das Item {}."),
+    HINT_NO_ITEMS("Tipp: Hier gibt es keine Items mehr zu finden."),
+    GO_BACK_OPTION("Gehe zurück zum vorherigen Raum."),
+    HINT_OPTION("Gib mir einen Tipp."),
+    QUIT_OPTION("Verlasse das Spiel.");
+
+    private final String defaultText;
+
+    /**
+     * constructor for a message
+     * @param defaultText the German text of the message
+     */
+    Message(String defaultText) {
+        this.defaultText = defaultText;
+    }
+
+    /**
+     * getter for the German text of the message
+     * @return the text used if the MessageTable does not contain the message
+     */
+    public String getDefaultText() {
+        return defaultText;
+    }
+}
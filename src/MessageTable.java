@@ -0,0 +1,141 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * the texts of all messages of one language, encoded to UTF-8 once when the table is created
+ * every text is split at its placeholders, so the OutputRenderer copies the encoded parts and the arguments into its
+ * buffer without building or encoding a string
+ * tables are immutable and can be shared by all sessions, every session can use a different table
+ */
+public final class MessageTable {
+
+    private static final String PLACEHOLDER = "{}";
+
+    /**
+     * the table with the German default texts
+     */
+    public static final MessageTable GERMAN = new MessageTable(new Properties());
+
+    // per message ordinal the parts between the placeholders, one part more than placeholders
+    private final String[][] textParts;
+    // the parts encoded to UTF-8
+    private final byte[][][] parts;
+    // per message ordinal the text normalized for typed commands without spaces, see CommandTrie.normalize
+    private final byte[][] commandKeys;
+
+    /**
+     * constructor for a table, messages without a text in the properties use the German default text
+     * @param texts the texts by the names of the messages
+     * @throws IllegalArgumentException if a text has a different number of placeholders than the default text
+     */
+    private MessageTable(Properties texts) {
+        Message[] messages = Message.values();
+        textParts = new String[messages.length][];
+        parts = new byte[messages.length][][];
+        commandKeys = new byte[messages.length][];
+        for (Message message : messages) {
+            int placeholders = split(message.getDefaultText()).length - 1;
+            String text = texts.getProperty(message.name(), message.getDefaultText());
+            String[] split = split(text);
+            if (split.length - 1 != placeholders)
+                throw new IllegalArgumentException("Die Nachricht " + message.name() + " muss " + placeholders
+                        + " Platzhalter enthalten!");
+
+            textParts[message.ordinal()] = split;
+            parts[message.ordinal()] = new byte[split.length][];
+            for (int i = 0; i < split.length; i++)
+                parts[message.ordinal()][i] = split[i].getBytes(StandardCharsets.UTF_8);
+            commandKeys[message.ordinal()] = commandKey(text);
+        }
+    }
+
+    /**
+     * loads a table from a properties file in UTF-8, the keys are the names of the messages, for example
+     * "CHOOSE_OPTION=Choose an option:"
+     * @param file the path of the properties file
+     * @return the table
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if a text has a different number of placeholders than the default text
+     */
+    public static MessageTable load(Path file) throws IOException {
+        Properties texts = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            texts.load(reader);
+        }
+        return new MessageTable(texts);
+    }
+
+    /**
+     * returns the encoded parts of a message
+     * @param message the message
+     * @return the parts before, between and after the placeholders, must not be changed
+     */
+    byte[][] getParts(Message message) {
+        return parts[message.ordinal()];
+    }
+
+    /**
+     * formats a message as a string, for texts which are built once and not rendered directly, for example hints
+     * @param message the message
+     * @param arguments the texts for the placeholders, missing arguments are left empty
+     * @return the text of the message with the arguments
+     */
+    public String format(Message message, String... arguments) {
+        String[] split = textParts[message.ordinal()];
+        StringBuilder text = new StringBuilder(split[0]);
+        for (int i = 1; i < split.length; i++)
+            text.append(i - 1 < arguments.length ? arguments[i - 1] : "").append(split[i]);
+        return text.toString();
+    }
+
+    /**
+     * returns the text of a message normalized like a typed command, used to choose the options added by the
+     * RoomBuilder by their translated text
+     * @param message the message
+     * @return the normalized UTF-8 text without spaces, must not be changed
+     */
+    byte[] getCommandKey(Message message) {
+        return commandKeys[message.ordinal()];
+    }
+
+    /**
+     * splits a text at its placeholders
+     * @param text the text
+     * @return the parts
+     */
+    private static String[] split(String text) {
+        List<String> result = new ArrayList<>();
+        int start = 0;
+        int placeholder;
+        while ((placeholder = text.indexOf(PLACEHOLDER, start)) >= 0) {
+            result.add(text.substring(start, placeholder));
+            start = placeholder + PLACEHOLDER.length();
+        }
+        result.add(text.substring(start));
+        return result.toArray(new String[0]);
+    }
+
+    /**
+     * normalizes a text like a typed command and removes the spaces
+     * @param text the text
+     * @return the normalized UTF-8 text
+     */
+    private static byte[] commandKey(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int length = CommandTrie.normalize(bytes, bytes.length);
+        int written = 0;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != ' ')
+                bytes[written++] = bytes[i];
+        }
+        return Arrays.copyOf(bytes, written);
+    }
+
+}
@@ -1,13 +1,26 @@
+import java.nio.charset.StandardCharsets;
+
 /**
  * a class for storing information about each option in a room containing its display text, how to handle choice of the
  * option and when to show the action
+ * options are immutable, so one option can be shared by many rooms and all threads without synchronization
+ * the display text is encoded to UTF-8 when the option is created, the RoomBuilder interns texts and their encoding in
+ * the TextTable of the world, the texts of the options added by the RoomBuilder are taken from the MessageTable of the
+ * session
  */
-public class Option {
+public final class Option {
 
-    private String optionText;
-    private String optionData;
-    private Action optionAction;
+    private final String optionText;
+    private final byte[] encodedText;
+    // the message of the display text or null if the display text is not translated
+    private final Message textMessage;
+    private final String optionData;
+    private final Action optionAction;
     private final OptionCondition optionCondition;
+    // id of the custom action in the ActionRegistry of the room, resolved by the RoomBuilder
+    private final int actionId;
+    // id of the target room of Action.CHANGE_ROOM in the world of the room, resolved by the WorldCompiler
+    private final int targetRoomId;
 
     /**
      * constructor for an option object
@@ -18,25 +31,95 @@ public class Option {
      * @param optionCondition condition for the option to be displayed
      */
     public Option(String optionText, String optionData, Action optionAction, OptionCondition optionCondition) {
+        this(optionText, optionData, optionAction, optionCondition, -1);
+    }
+
+    /**
+     * constructor for an option object with a resolved custom action, used by the RoomBuilder
+     * @param optionText the display text
+     * @param optionData additional information for handling choice
+     * @param optionAction type of action to perform when chosen
+     * @param optionCondition condition for the option to be displayed
+     * @param actionId the id of the custom action in the ActionRegistry or -1
+     */
+    Option(String optionText, String optionData, Action optionAction, OptionCondition optionCondition, int actionId) {
+        this(optionText, null, null, optionData, optionAction, optionCondition, actionId, -1);
+    }
+
+    /**
+     * constructor for an option object with a resolved custom action and target room, used by the BinaryWorld and
+     * the RoomBuilder
+     * @param optionText the display text
+     * @param optionData additional information for handling choice
+     * @param optionAction type of action to perform when chosen
+     * @param optionCondition condition for the option to be displayed
+     * @param actionId the id of the custom action in the ActionRegistry or -1
+     * @param targetRoomId the id of the target room in the world of the room or -1 if it is resolved by name
+     */
+    Option(String optionText, String optionData, Action optionAction, OptionCondition optionCondition, int actionId,
+           int targetRoomId) {
+        this(optionText, null, null, optionData, optionAction, optionCondition, actionId, targetRoomId);
+    }
+
+    /**
+     * constructor for an option object with an interned display text, used by the RoomBuilder
+     * @param text the interned display text and its encoding, see TextTable
+     * @param optionData additional information for handling choice
+     * @param optionAction type of action to perform when chosen
+     * @param optionCondition condition for the option to be displayed
+     * @param actionId the id of the custom action in the ActionRegistry or -1
+     * @param targetRoomId the id of the target room in the world of the room or -1 if it is resolved by name
+     */
+    Option(TextTable.Text text, String optionData, Action optionAction, OptionCondition optionCondition,
+           int actionId, int targetRoomId) {
+        this(text.text, text.encoded, null, optionData, optionAction, optionCondition, actionId, targetRoomId);
+    }
+
+    /**
+     * constructor for an option object with a translated display text, used by the RoomBuilder
+     * @param textMessage the message of the display text
+     * @param optionData additional information for handling choice
+     * @param optionAction type of action to perform when chosen
+     * @param optionCondition condition for the option to be displayed
+     * @param actionId the id of the custom action in the ActionRegistry or -1
+     */
+    Option(Message textMessage, String optionData, Action optionAction, OptionCondition optionCondition, int actionId) {
+        this(textMessage.getDefaultText(), null, textMessage, optionData, optionAction, optionCondition, actionId, -1);
+    }
+
+    /**
+     * constructor for an option object
+     * @param optionText the display text
+     * @param encodedText the display text encoded to UTF-8 or null if it is encoded here
+     * @param textMessage the message of the display text or null
+     * @param optionData additional information for handling choice
+     * @param optionAction type of action to perform when chosen
+     * @param optionCondition condition for the option to be displayed
+     * @param actionId the id of the custom action in the ActionRegistry or -1
+     * @param targetRoomId the id of the target room in the world of the room or -1
+     */
+    private Option(String optionText, byte[] encodedText, Message textMessage, String optionData,
+                   Action optionAction, OptionCondition optionCondition, int actionId, int targetRoomId) {
         this.optionText = optionText;
+        this.encodedText = encodedText != null ? encodedText : optionText.getBytes(StandardCharsets.UTF_8);
+        this.textMessage = textMessage;
         this.optionData = optionData;
         this.optionAction = optionAction;
         this.optionCondition = optionCondition;
+        this.actionId = actionId;
+        this.targetRoomId = targetRoomId;
     }
 
     /**
      * constructor for an option object
-     * set the condition always to true, option will always be displayed
+     * the condition is the shared Conditions.always, option will always be displayed
      * @param optionText the display text
      * @param optionData additional information for handling choice - the name of the room if Action.CHANGE_ROOM
-     *      *                   or the name of the item if Action.PICK_ITEM
+     *                   or the name of the item if Action.PICK_ITEM
      * @param optionAction type of action to perform when chosen
      */
     public Option(String optionText, String optionData, Action optionAction) {
-        this.optionText = optionText;
-        this.optionData = optionData;
-        this.optionAction = optionAction;
-        this.optionCondition = new OptionCondition() {};
+        this(optionText, optionData, optionAction, Conditions.always(), -1);
     }
 
     /**
@@ -48,43 +131,55 @@ public class Option {
     }
 
     /**
-     * setter for the display text of the option
-     * @param optionText the value for the display text
+     * returns the display text of the option in the language of a message table
+     * @param messages the message table
+     * @return the translated text if the text is a message, else the display text
      */
-    public void setOptionText(String optionText) {
-        this.optionText = optionText;
+    public String getOptionText(MessageTable messages) {
+        return textMessage != null ? messages.format(textMessage) : optionText;
     }
 
     /**
-     * getter for additional information for handling choice of the option
-     * @return additional information for handling choice of the option
+     * getter for the message of the display text
+     * @return the message or null if the display text is not translated
      */
-    public String getOptionData() {
-        return optionData;
+    Message getTextMessage() {
+        return textMessage;
     }
 
     /**
-     * setter for additional information for handling choice of the option
-     * @param optionData additional information for handling choice of the option to set
+     * getter for the display text encoded to UTF-8
+     * @return the encoded text, must not be changed
      */
-    public void setOptionData(String optionData) {
-        this.optionData = optionData;
+    byte[] getEncodedText() {
+        return encodedText;
     }
 
     /**
-     * getter for the type of action
-     * @return the action to perform when chosen
+     * renders the display text of the option, translated by the MessageTable of the renderer if the text is a message
+     * @param out the renderer to append the text to
      */
-    public Action getOptionAction() {
-        return optionAction;
+    void appendText(OutputRenderer out) {
+        if (textMessage != null)
+            out.append(textMessage);
+        else
+            out.append(encodedText);
     }
 
     /**
-     * setter for the type of action
-     * @param optionAction type of the action to set
+     * getter for additional information for handling choice of the option
+     * @return additional information for handling choice of the option
      */
-    public void setOptionAction(Action optionAction) {
-        this.optionAction = optionAction;
+    public String getOptionData() {
+        return optionData;
+    }
+
+    /**
+     * getter for the type of action
+     * @return the action to perform when chosen
+     */
+    public Action getOptionAction() {
+        return optionAction;
     }
 
     /**
@@ -95,4 +190,20 @@ public class Option {
         return optionCondition;
     }
 
+    /**
+     * getter for the id of the custom action
+     * @return the id in the ActionRegistry of the room or -1 if the action is not resolved
+     */
+    int getActionId() {
+        return actionId;
+    }
+
+    /**
+     * getter for the id of the target room
+     * @return the id of the room Action.CHANGE_ROOM switches to or -1 if the room is resolved by its name
+     */
+    int getTargetRoomId() {
+        return targetRoomId;
+    }
+
 }
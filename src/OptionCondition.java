@@ -2,11 +2,57 @@ public interface OptionCondition {
 
     /**
      * called from a room to check if an option should be displayed
-     * @param items a string array of all picked up items
+     * the default implementation calls checkCondition(InventoryView) for conditions which do not depend on the
+     * previous room
+     * @param inventory a read-only view of all picked up items
+     * @param prevRoom the room the player was in before or null if there is none
+     * @return true if the condition is fulfilled and the option should be displayed
+     */
+    default boolean checkCondition(InventoryView inventory, Room prevRoom) {
+        return checkCondition(inventory);
+    }
+
+    /**
+     * called from a room to check if an option should be displayed, the previous room is passed by its id
+     * the default implementation requests the previous room from the room source and calls
+     * checkCondition(InventoryView, Room), conditions which only check if there is a previous room override it, so
+     * the room is not loaded
+     * @param inventory a read-only view of all picked up items
+     * @param prevRoomId the id of the room the player was in before or -1 if there is none
+     * @param rooms the rooms of the world of the player
+     * @return true if the condition is fulfilled and the option should be displayed
+     */
+    default boolean checkCondition(InventoryView inventory, int prevRoomId, RoomSource rooms) {
+        return checkCondition(inventory, prevRoomId < 0 ? null : rooms.get(prevRoomId));
+    }
+
+    /**
+     * called from checkCondition(InventoryView, Room) to check if an option should be displayed
+     * the default implementation calls checkCondition(String[]) with all picked up items
+     * @param inventory a read-only view of all picked up items
+     * @return true if the condition is fulfilled and the option should be displayed
+     */
+    default boolean checkCondition(InventoryView inventory) {
+        return checkCondition(inventory.getAllItems());
+    }
+
+    /**
+     * called from checkCondition(InventoryView) to check if an option should be displayed
+     * @param items a string array of all picked up items, must not be modified
      * @return true if the condition is fulfilled and the option should be displayed
      */
     default boolean checkCondition(String[] items) {
         return true;
     }
 
+    /**
+     * called from a room to check if the result of this condition may be cached
+     * a cached result is reused until an item is picked up or the previous room changes, conditions which depend on
+     * other state or have side effects must return false
+     * @return true if the result only depends on the picked up items and the previous room
+     */
+    default boolean isCacheable() {
+        return true;
+    }
+
 }
\ No newline at end of file
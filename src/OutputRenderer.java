@@ -0,0 +1,372 @@
+import java.io.Console;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * collects all messages to a player in one reusable UTF-8 buffer and writes them to the output in a single call
+ * a room renders a whole prompt (messages, header and numbered options) before flush is called once, so the output is
+ * not synchronized and flushed for every line
+ * messages of the game are copied from the pre-encoded parts of the MessageTable of the renderer, the table can be
+ * switched at any time
+ * if the output uses another charset than UTF-8, the buffer is converted to it at flush, characters which can not be
+ * encoded in this charset are replaced
+ */
+public class OutputRenderer {
+
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private final OutputStream output;
+    private final boolean discard;
+    private final Charset charset;
+    // null if the output is UTF-8 and the buffer is written as it is
+    private final CharsetDecoder decoder;
+    private final CharsetEncoder encoder;
+    // reused for the conversion at flush, grow with the buffer
+    private CharBuffer decoded;
+    private ByteBuffer encoded;
+    private byte[] buffer = new byte[DEFAULT_BUFFER_SIZE];
+    private int length = 0;
+    private boolean failed = false;
+    private MessageTable messages = MessageTable.GERMAN;
+
+    /**
+     * constructor for a renderer writing UTF-8 to an output stream, for example the output stream of a socket
+     * @param output the output of the player
+     */
+    public OutputRenderer(OutputStream output) {
+        this(output, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * constructor for a renderer writing to an output stream in the given charset
+     * @param output the output of the player, for example System.out
+     * @param charset the charset the player reads the output in, for example consoleCharset() for System.out
+     */
+    public OutputRenderer(OutputStream output, Charset charset) {
+        this(output, charset, false);
+    }
+
+    /**
+     * constructor for a renderer
+     * @param output the output of the player
+     * @param charset the charset of the output
+     * @param discard true if all messages should be dropped without encoding them
+     */
+    private OutputRenderer(OutputStream output, Charset charset, boolean discard) {
+        this.output = output;
+        this.charset = charset;
+        this.discard = discard;
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            decoder = null;
+            encoder = null;
+        } else {
+            decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            encoder = charset.newEncoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+    }
+
+    /**
+     * creates a renderer which drops all messages, used for sessions without a player reading the output
+     * @return a renderer without output
+     */
+    public static OutputRenderer discarding() {
+        return new OutputRenderer(OutputStream.nullOutputStream(), StandardCharsets.UTF_8, true);
+    }
+
+    /**
+     * returns the charset of the console System.out writes to, the same charset System.out itself uses
+     * @return the charset of the console or the native charset if there is no console
+     */
+    public static Charset consoleCharset() {
+        Console console = System.console();
+        if (console != null)
+            return console.charset();
+
+        String encoding = System.getProperty("stdout.encoding", System.getProperty("sun.stdout.encoding",
+                System.getProperty("native.encoding")));
+        try {
+            return encoding == null ? Charset.defaultCharset() : Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            return Charset.defaultCharset();
+        }
+    }
+
+    /**
+     * getter for the charset the output is written in
+     * @return the charset
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * getter for the table of the messages of this renderer
+     * @return the message table
+     */
+    public MessageTable getMessages() {
+        return messages;
+    }
+
+    /**
+     * sets the table the messages of this renderer are taken from, for example to switch the language of a session
+     * @param messages the message table
+     */
+    public void setMessages(MessageTable messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * appends a message without placeholders to the buffer
+     * @param message the message to append
+     * @return this OutputRenderer
+     */
+    public OutputRenderer append(Message message) {
+        if (discard)
+            return this;
+
+        return append(messages.getParts(message)[0]);
+    }
+
+    /**
+     * appends a message with one placeholder to the buffer
+     * @param message the message to append
+     * @param argument the text for the placeholder
+     * @return this OutputRenderer
+     */
+    public OutputRenderer append(Message message, String argument) {
+        if (discard)
+            return this;
+
+        byte[][] parts = messages.getParts(message);
+        return append(parts[0]).append(argument).append(parts[1]);
+    }
+
+    /**
+     * appends a message with one placeholder to the buffer
+     * @param message the message to append
+     * @param argument the UTF-8 encoded text for the placeholder
+     * @return this OutputRenderer
+     */
+    public OutputRenderer append(Message message, byte[] argument) {
+        if (discard)
+            return this;
+
+        byte[][] parts = messages.getParts(message);
+        return append(parts[0]).append(argument).append(parts[1]);
+    }
+
+    /**
+     * appends a message with two placeholders to the buffer
+     * @param message the message to append
+     * @param first the UTF-8 encoded text for the first placeholder
+     * @param second the UTF-8 encoded text for the second placeholder
+     * @return this OutputRenderer
+     */
+    public OutputRenderer append(Message message, byte[] first, byte[] second) {
+        if (discard)
+            return this;
+
+        byte[][] parts = messages.getParts(message);
+        return append(parts[0]).append(first).append(parts[1]).append(second).append(parts[2]);
+    }
+
+    /**
+     * appends a message without placeholders and a line break to the buffer
+     * @param message the message to append
+     * @return this OutputRenderer
+     */
+    public OutputRenderer println(Message message) {
+        return append(message).newLine();
+    }
+
+    /**
+     * appends an UTF-8 encoded text to the buffer
+     * @param text the encoded text, for example an option text encoded when the option was created
+     * @return this OutputRenderer
+     */
+    public OutputRenderer append(byte[] text) {
+        if (discard)
+            return this;
+
+        ensureCapacity(text.length);
+        System.arraycopy(text, 0, buffer, length, text.length);
+        length += text.length;
+        return this;
+    }
+
+    /**
+     * appends an UTF-8 encoded text from a byte buffer, the position of the byte buffer is not changed, so it can be
+     * shared by many threads
+     * @param data the byte buffer, for example the data of a BinaryWorld
+     * @param offset the index of the first byte of the text
+     * @param textLength the number of bytes of the text
+     * @return this OutputRenderer
+     */
+    public OutputRenderer append(ByteBuffer data, int offset, int textLength) {
+        if (discard)
+            return this;
+
+        ensureCapacity(textLength);
+        data.get(offset, buffer, length, textLength);
+        length += textLength;
+        return this;
+    }
+
+    /**
+     * appends a text to the buffer
+     * @param text the text to append
+     * @return this OutputRenderer
+     */
+    public OutputRenderer append(String text) {
+        if (discard)
+            return this;
+
+        ensureCapacity(text.length() * 3);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xC0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                buffer[length++] = (byte) (0xE0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * appends a non negative number to the buffer without converting it to a string
+     * @param number the number to append
+     * @return this OutputRenderer
+     */
+    public OutputRenderer append(int number) {
+        if (discard)
+            return this;
+
+        ensureCapacity(10);
+        int start = length;
+        do {
+            buffer[length++] = (byte) ('0' + number % 10);
+            number /= 10;
+        } while (number > 0);
+
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte b = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = b;
+        }
+        return this;
+    }
+
+    /**
+     * appends a line break to the buffer
+     * @return this OutputRenderer
+     */
+    public OutputRenderer newLine() {
+        if (discard)
+            return this;
+
+        ensureCapacity(1);
+        buffer[length++] = '\n';
+        return this;
+    }
+
+    /**
+     * appends a text and a line break to the buffer
+     * @param text the text to append
+     * @return this OutputRenderer
+     */
+    public OutputRenderer println(String text) {
+        return append(text).newLine();
+    }
+
+    /**
+     * writes the whole buffer to the output in one call and clears it
+     * if the output fails all further messages are dropped, see hasFailed
+     */
+    public void flush() {
+        if (length == 0 || failed) {
+            length = 0;
+            return;
+        }
+
+        try {
+            if (encoder == null)
+                output.write(buffer, 0, length);
+            else
+                writeEncoded();
+            output.flush();
+        } catch (IOException e) {
+            failed = true;
+        }
+        length = 0;
+    }
+
+    /**
+     * checks if writing to the output failed, for example because the connection of the player was closed
+     * @return true if a write failed
+     */
+    public boolean hasFailed() {
+        return failed;
+    }
+
+    /**
+     * converts the UTF-8 buffer to the charset of the output and writes it
+     * @throws IOException if the output fails
+     */
+    private void writeEncoded() throws IOException {
+        if (decoded == null || decoded.capacity() < length) {
+            decoded = CharBuffer.allocate(buffer.length);
+            encoded = ByteBuffer.allocate((int) Math.ceil(buffer.length * (double) encoder.maxBytesPerChar()));
+        }
+        decoded.clear();
+        encoded.clear();
+        decoder.reset().decode(ByteBuffer.wrap(buffer, 0, length), decoded, true);
+        decoder.flush(decoded);
+        decoded.flip();
+        encoder.reset().encode(decoded, encoded, true);
+        encoder.flush(encoded);
+        output.write(encoded.array(), 0, encoded.position());
+    }
+
+    /**
+     * doubles the size of the buffer until the given number of bytes fit behind the current content
+     * @param additionalBytes the number of bytes to append
+     */
+    private void ensureCapacity(int additionalBytes) {
+        int required = length + additionalBytes;
+        if (required <= buffer.length)
+            return;
+
+        int newSize = buffer.length * 2;
+        while (newSize < required)
+            newSize *= 2;
+
+        byte[] newBuffer = new byte[newSize];
+        System.arraycopy(buffer, 0, newBuffer, 0, length);
+        buffer = newBuffer;
+    }
+
+}
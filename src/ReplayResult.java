@@ -0,0 +1,81 @@
+/**
+ * result of replaying one input script with the ReplayRunner
+ */
+public class ReplayResult {
+
+    private final String finalRoom;
+    private final String[] items;
+    private final long stepCount;
+    private final long moveCount;
+    private final String error;
+
+    /**
+     * constructor for a replay result
+     * @param finalRoom name of the room the session ended in
+     * @param items all items picked up in the session
+     * @param stepCount number of options chosen in the session
+     * @param moveCount number of room changes in the session
+     * @param error message of the error which ended the session or null if the script ran without an error
+     */
+    public ReplayResult(String finalRoom, String[] items, long stepCount, long moveCount, String error) {
+        this.finalRoom = finalRoom;
+        this.items = items;
+        this.stepCount = stepCount;
+        this.moveCount = moveCount;
+        this.error = error;
+    }
+
+    /**
+     * getter for the name of the room the session ended in
+     * @return name of the final room
+     */
+    public String getFinalRoom() {
+        return finalRoom;
+    }
+
+    /**
+     * getter for the items picked up in the session
+     * @return all picked up items
+     */
+    public String[] getItems() {
+        return items;
+    }
+
+    /**
+     * getter for the number of options chosen in the session
+     * @return number of chosen options
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * getter for the number of room changes in the session
+     * @return number of room changes
+     */
+    public long getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * getter for the error which ended the session
+     * @return the error message or null if the script ran without an error
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * formats the result as a single line
+     * @return the result as string
+     */
+    @Override
+    public String toString() {
+        return "Raum: " + finalRoom +
+                ", Items: " + String.join(", ", items) +
+                ", Schritte: " + stepCount +
+                ", Raumwechsel: " + moveCount +
+                (error == null ? "" : ", Fehler: " + error);
+    }
+
+}
@@ -0,0 +1,97 @@
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * replays recorded input scripts against a world without a player
+ * the world is built once and every script is played in a fresh GameSession without output, scripts are distributed
+ * over all cores
+ */
+public class ReplayRunner {
+
+    private final World world;
+    private final MessageTable messages;
+
+    /**
+     * constructor for a replay runner
+     * @param world the world all scripts are played in
+     */
+    public ReplayRunner(World world) {
+        this(world, MessageTable.GERMAN);
+    }
+
+    /**
+     * constructor for a replay runner
+     * @param world the world all scripts are played in
+     * @param messages the messages of the sessions, typed commands in the scripts are resolved in this language
+     */
+    public ReplayRunner(World world, MessageTable messages) {
+        this.world = world;
+        this.messages = messages;
+    }
+
+    /**
+     * replays a single script
+     * @param script the input of the player, one option number per line
+     * @return the state of the session after the script ended
+     */
+    public ReplayResult run(byte[] script) {
+        GameSession session = new GameSession(world, new ByteArrayInputStream(script), OutputRenderer.discarding());
+        session.setMessages(messages);
+        String error = null;
+        try {
+            new GameEngine(session).run();
+        } catch (RuntimeException e) {
+            error = e.getMessage();
+        }
+
+        return new ReplayResult(
+                session.getCurrentRoom().name,
+                session.getAllItems().clone(),
+                session.getStepCount(),
+                session.getMoveCount(),
+                error
+        );
+    }
+
+    /**
+     * replays all scripts in parallel
+     * @param scripts the inputs of the players
+     * @return the results in the order of the scripts
+     */
+    public List<ReplayResult> runAll(List<byte[]> scripts) {
+        return IntStream.range(0, scripts.size())
+                .parallel()
+                .mapToObj(i -> run(scripts.get(i)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * reads all script files and replays them in parallel
+     * @param files the paths of the script files
+     * @return the results in the order of the files
+     * @throws IOException if a file can not be read
+     */
+    public List<ReplayResult> runFiles(List<Path> files) throws IOException {
+        byte[][] scripts = new byte[files.size()][];
+        for (int i = 0; i < scripts.length; i++)
+            scripts[i] = Files.readAllBytes(files.get(i));
+
+        return runAll(List.of(scripts));
+    }
+
+    /**
+     * converts a script from a string
+     * @param script the input of the player, one option number per line
+     * @return the script as UTF-8 bytes
+     */
+    public static byte[] script(String script) {
+        return script.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
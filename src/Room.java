@@ -1,136 +1,273 @@
-import java.util.InputMismatchException;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * a room of the world
+ * rooms are shared by all sessions playing in the same world, all state of a player is stored in the GameSession which
+ * is passed to visit
+ * the options of a room are never changed after it is built, so rooms can be shared by all threads
+ */
 class Room {
 
+    private static final byte[] ITEM_SEPARATOR = {',', ' '};
+
     final String name;
+    // the name encoded to UTF-8 for the messages of the room
+    final byte[] encodedName;
+    // index of the room in the RoomRegistry, assigned when the room is registered
+    int id = -1;
+
+    protected final Option[] options;
+    protected final ActionRegistry actions;
+    // resolves typed commands to the options, see CommandIndex
+    protected final CommandIndex commands;
 
-    protected Option[] options;
-    protected ItemPicker picker;
-    protected RoomSwitcher switcher;
-    protected ActionHandler handler;
+    // true if the available options can be cached per state version, see OptionCondition.isCacheable
+    private final boolean allConditionsCacheable;
 
     /**
      * constructor for a room
      * @param name name of the room
      * @param options all different options which can be displayed in this room
-     * @param picker an impl of ItemPicker which handles storing of picked up items
-     * @param switcher an impl of RoomSwitcher which manages all different existing rooms
-     * @param handler an impl of ActionHandler which handles custom actions via checking the option.optionData value
+     * @param actions the registry of the custom actions of the options
+     */
+    public Room(String name, Option[] options, ActionRegistry actions) {
+        this(name, options, actions, new CommandIndex(options));
+    }
+
+    /**
+     * constructor for a room with a prebuilt command index
+     * @param name name of the room
+     * @param options all different options which can be displayed in this room
+     * @param actions the registry of the custom actions of the options
+     * @param commands the index of the typed commands of the options
      */
-    public Room(String name, Option[] options, ItemPicker picker, RoomSwitcher switcher, ActionHandler handler) {
+    public Room(String name, Option[] options, ActionRegistry actions, CommandIndex commands) {
         this.name = name;
+        this.encodedName = name.getBytes(StandardCharsets.UTF_8);
         this.options = options;
-        this.picker = picker;
-        this.switcher = switcher;
-        this.handler = handler;
+        this.actions = actions;
+        this.commands = commands;
+
+        boolean cacheable = true;
+        for (Option option : options)
+            cacheable &= option.getOptionCondition().isCacheable();
+        this.allConditionsCacheable = cacheable;
+    }
+
+    /**
+     * resolves the item names of all compiled conditions of this room to the item ids of the world
+     * called once when the room is added to a World or decoded by a LazyRoomSource
+     * @param items the item table of the world
+     */
+    void link(ItemTable items) {
+        for (Option option : options) {
+            if (option.getOptionCondition() instanceof CompiledCondition condition)
+                condition.link(items);
+        }
     }
 
     /**
-     * prints the room name !isSwitch and outputs all available options
+     * prints the room name !isSwitch, else the path of the player through the last rooms, and outputs the other players
+     * in the room and all available options
+     * an option is chosen by its number or by a typed command, see CommandIndex
      * if an option is chosen:
-     *  if the action of the option is CHANGE_ROOM visitOtherRoom is called
-     *  else the action is executed (pick item via ItemPicker or handle custom action via ActionHandler)
+     *  if the action of the option is CHANGE_ROOM the next room is returned to the caller
+     *  else the action is executed (pick item via the session or custom action via the ActionRegistry)
      *  and the now available options are printed again
+     * the results of asynchronous custom actions are applied before every prompt
+     * the room never visits the next room itself, the GameEngine drives the transitions in a loop
+     * @param session the state of the player visiting this room
      * @param isSwitch true if no welcome message should be printed
+     * @return the room to switch to or null if the session ended
+     * @throws IllegalStateException if the chosen option points to a room which does not exist
      */
-    void visit(boolean isSwitch) {
-        if (!isSwitch)
-            System.out.println("Du bist in Raum " + name);
+    Room visit(GameSession session, boolean isSwitch) {
+        OutputRenderer out = session.getOutput();
+        InputReader input = session.getInput();
+        Option[] availableOptions = session.availableOptions;
+
+        if (!isSwitch) {
+            out.append(Message.WELCOME, encodedName).newLine();
+        } else {
+            out.append(Message.PATH);
+            session.appendBreadcrumbs(out);
+            out.newLine();
+        }
+        if (GameMetrics.ENABLED)
+            GameMetrics.get().recordVisit(this);
 
-        int choice = 0;
-        Option option;
         while (true) {
-            Option[] availableOptions = getAvailableOptions();
-            System.out.println("Wähle eine Option:");
-            for (int i = 0; i < availableOptions.length; i++)
-                System.out.println("  " + i + ": " + availableOptions[i].getOptionText());
-
-            Scanner scanner = new Scanner(System.in);
-            try {
-                choice = scanner.nextInt();
-                if (choice < 0 || choice >= availableOptions.length) {
-                    System.out.println("Die eingegebene Zahl gehört zu keiner Option!");
+            session.runCompletedActions();
+            long promptStart = GameMetrics.ENABLED ? System.nanoTime() : 0;
+            int availableOptionCount = getAvailableOptions(session);
+            SharedWorldState shared = session.getSharedState();
+            if (shared != null)
+                shared.appendOtherPlayers(id, session, out);
+            out.println(Message.CHOOSE_OPTION);
+            for (int i = 0; i < availableOptionCount; i++) {
+                out.append("  ").append(i).append(": ");
+                availableOptions[i].appendText(out);
+                out.newLine();
+            }
+            out.flush();
+            if (GameMetrics.ENABLED)
+                GameMetrics.get().recordPrompt(System.nanoTime() - promptStart);
+
+            int choice = input.readChoice();
+            if (choice == InputReader.END_OF_INPUT) {
+                out.println(Message.END_OF_INPUT);
+                session.quit();
+                return null;
+            } else if (choice == InputReader.NO_NUMBER) {
+                choice = input.resolveCommand(commands, out.getMessages(), availableOptions,
+                        availableOptionCount);
+                if (choice == CommandIndex.UNKNOWN) {
+                    out.println(Message.UNKNOWN_COMMAND);
+                    out.println(Message.ENTER_NUMBER);
+                    continue;
+                } else if (choice == CommandIndex.NOT_AVAILABLE) {
+                    out.println(Message.OPTION_NOT_AVAILABLE);
                     continue;
                 }
-            } catch (InputMismatchException e) {
-                System.out.println("Die Eingabe wurde nicht als Zahl erkannt!");
-                System.out.println("Bitte gib die Nummer der Option ein!");
-                continue;
-            } catch (NoSuchElementException e) {
-                System.out.println("Es wurde keine Eingabe erkannt!");
-                System.out.println("Bitte gib die Nummer der Option ein!");
+            } else if (choice == InputReader.NEGATIVE_NUMBER || choice >= availableOptionCount) {
+                out.println(Message.NO_OPTION);
                 continue;
-            } catch (IllegalStateException e) {
-                System.out.println("Die Eingabe ist nicht mehr verfügbar!");
-                System.exit(-1);
             }
-            option = availableOptions[choice];
-
-            if (option.getOptionAction() != Action.CHANGE_ROOM)
-            {
-                if (option.getOptionAction() == Action.PICK_ITEM) {
-                    picker.pickItem(option.getOptionData());
-                    System.out.println("Du hast das Item " + option.getOptionData() + " aufgenommen.");
-                    printAllItems();
-                    System.out.println("Du bleibst in Raum " + name);
-                } else {
-                    handler.handleAction(option.getOptionData());
-                }
+
+            Room nextRoom = choose(session, choice);
+            if (nextRoom != null || session.isQuit())
+                return nextRoom;
+        }
+    }
+
+    /**
+     * executes an option of the available options of the session
+     * getAvailableOptions must have been called for this room and the current state of the session before
+     * if the action of the option is CHANGE_ROOM the next room is returned
+     * else the action is executed (pick item via the session or custom action via the ActionRegistry)
+     * in a shared world an item can only be picked up by the first player
+     * custom actions of options built by a RoomBuilder are dispatched by their resolved id
+     * target rooms resolved by the WorldCompiler are looked up by their id, other target rooms by their name
+     * @param session the state of the player visiting this room
+     * @param choice the index of the option in the available options
+     * @return the room to switch to or null if the player stays in this room or the session ended
+     * @throws IllegalStateException if the chosen option points to a room which does not exist
+     */
+    Room choose(GameSession session, int choice) {
+        Option option = session.availableOptions[choice];
+        session.recordChoice(choice);
+
+        if (option.getOptionAction() == Action.PICK_ITEM) {
+            OutputRenderer out = session.getOutput();
+            SharedWorldState shared = session.getSharedState();
+            ItemTable items = session.getWorld().getItems();
+            byte[] itemName = items.encodedNameOf(items.idOf(option.getOptionData()));
+            if (shared != null && !shared.take(id, option.getOptionData())) {
+                out.append(Message.ITEM_TAKEN, itemName).newLine();
+                return null;
             }
-            else break;
+            session.pickItem(option.getOptionData());
+            out.append(Message.ITEM_PICKED, itemName).newLine();
+            printAllItems(session);
+            out.append(Message.STAY_IN_ROOM, encodedName).newLine();
+            return null;
+        } else if (option.getOptionAction() == Action.CUSTOM) {
+            if (option.getActionId() >= 0)
+                actions.dispatch(option.getActionId(), session);
+            else
+                actions.handleAction(option.getOptionData(), session);
+            return null;
         }
 
-        Room nextRoom = switcher.SwitchRoom(option.getOptionData());
-        if (nextRoom == null) {
-            System.err.println("Raum mit dem Namen " + option.getOptionData() +
+        Room nextRoom = option.getTargetRoomId() >= 0 ? session.switchRoom(option.getTargetRoomId())
+                : session.SwitchRoom(option.getOptionData());
+        if (nextRoom == null)
+            throw new IllegalStateException("Raum mit dem Namen " + option.getOptionData() +
                     " im Raum " + this.name + " nicht gefunden!");
-            System.exit(-1);
-        }
 
-        visitOtherRoom(nextRoom);
+        return nextRoom;
     }
 
     /**
-     * handles prevRoom change, outputs that the room changes and calls visit from the next room
-     * @param room the room to visit
+     * handles prevRoom change and outputs that the room changes
+     * does not visit the next room, this is done by the GameEngine
+     * @param session the state of the player leaving this room
+     * @param room the room to visit next
      */
-    void visitOtherRoom(Room room) {
-        switcher.SetPrevRoom(this);
-        System.out.println("Du wechselst vom " + name + " in " + room.name);
-        room.visit(true);
+    void visitOtherRoom(GameSession session, Room room) {
+        session.SetPrevRoom(this);
+        session.getOutput().append(Message.SWITCH_ROOM, encodedName, room.encodedName).newLine();
     }
 
     /**
      * outputs all picked up items
+     * the line is rendered into the output buffer of the session and written together with the next prompt
+     * the items are read from the bits of the inventory and their encoded names from the ItemTable, so no string is
+     * built or encoded
+     * @param session the state of the player
      */
-    private void printAllItems() {
-        String[] items = picker.getAllItems();
-        System.out.print("Deine aufgesammelten Items sind: ");
-        for (int i = 0; i < items.length - 1; i++) {
-            System.out.print(items[i] + ", ");
+    private void printAllItems(GameSession session) {
+        OutputRenderer out = session.getOutput();
+        ItemTable items = session.getWorld().getItems();
+        InventoryView inventory = session.getInventory();
+        out.append(Message.ALL_ITEMS);
+        boolean first = true;
+        for (int w = 0, words = (items.size() + 63) >>> 6; w < words; w++) {
+            for (long word = inventory.getItemWord(w); word != 0; word &= word - 1) {
+                if (!first)
+                    out.append(ITEM_SEPARATOR);
+                out.append(items.encodedNameOf((w << 6) + Long.numberOfTrailingZeros(word)));
+                first = false;
+            }
         }
-        System.out.println(items[items.length-1]);
+        out.newLine();
     }
 
     /**
-     * checks for every option if the condition is true and returns an array of options where it's true
-     * @return array of available options
+     * checks for every option if the condition is true and stores the options where it's true at the beginning of the
+     * availableOptions buffer of the session
+     * the results of cacheable conditions are reused until the room or the state version of the session changes,
+     * only conditions which are not cacheable are checked again
+     * the inventory view is requested once and shared by all conditions, no array is allocated
+     * in a shared world items taken by other players are not shown, the cache is also invalidated when the version of
+     * the room in the shared state changes
+     * the time for checking the conditions is recorded in the GameMetrics, cache hits are not recorded
+     * @param session the state of the player
+     * @return number of available options
      */
-    private Option[] getAvailableOptions() {
+    int getAvailableOptions(GameSession session) {
+        long stateVersion = session.getStateVersion();
+        SharedWorldState shared = session.getSharedState();
+        long sharedVersion = shared == null ? -1 : shared.getVersion(id);
+        boolean cacheValid = session.cachedRoom == this && stateVersion == session.cachedStateVersion
+                && sharedVersion == session.cachedSharedVersion;
+        if (cacheValid && allConditionsCacheable)
+            return session.cachedOptionCount;
+
+        long conditionStart = GameMetrics.ENABLED ? System.nanoTime() : 0;
+        InventoryView inventory = session.getInventory();
+        // only opaque conditions load the previous room, see OptionCondition.checkCondition
+        int prevRoomId = session.getPrevRoomId();
+        RoomSource rooms = session.getWorld().getRooms();
+        Option[] availableOptions = session.availableOptions;
+        boolean[] conditionResults = session.conditionResults;
         int size = 0;
-        Option[] availableOptions = new Option[options.length];
 
-        for (int i = 0; i < availableOptions.length; i++) {
-            if (options[i].getOptionCondition().checkCondition(picker.getAllItems()))
+        for (int i = 0; i < options.length; i++) {
+            OptionCondition condition = options[i].getOptionCondition();
+            if (!cacheValid || !condition.isCacheable())
+                conditionResults[i] = condition.checkCondition(inventory, prevRoomId, rooms);
+            if (conditionResults[i] && (shared == null || options[i].getOptionAction() != Action.PICK_ITEM
+                    || !shared.isTaken(id, options[i].getOptionData())))
                 availableOptions[size++] = options[i];
         }
 
-        Option[] availableOptionsTrunc = new Option[size];
-        for (int i = 0; i < availableOptionsTrunc.length; i++)
-            availableOptionsTrunc[i] = availableOptions[i];
-
-        return availableOptionsTrunc;
+        session.cachedRoom = this;
+        session.cachedStateVersion = stateVersion;
+        session.cachedSharedVersion = sharedVersion;
+        session.cachedOptionCount = size;
+        if (GameMetrics.ENABLED)
+            GameMetrics.get().recordConditions(this, System.nanoTime() - conditionStart);
+        return size;
     }
 }
@@ -1,38 +1,46 @@
-public class RoomBuilder implements RoomSwitcher, ActionHandler {
+public class RoomBuilder {
 
     private static final int DEFAULT_ARRAY_SIZE = 20;
 
+    // options added by the builder, options are immutable so every room shares the same instances
+    private static final Option GO_BACK_OPTION = new Option(Message.GO_BACK_OPTION, "PREV",
+            Action.CHANGE_ROOM, Conditions.hasPrevRoom(), -1);
+    private static final Option HINT_OPTION = new Option(Message.HINT_OPTION, ActionRegistry.HINT,
+            Action.CUSTOM, Conditions.always(), ActionRegistry.HINT_ID);
+    private static final Option QUIT_OPTION = new Option(Message.QUIT_OPTION, ActionRegistry.QUIT,
+            Action.CUSTOM, Conditions.always(), ActionRegistry.QUIT_ID);
+
     private String name;
+    // only the added options, the back, hint and quit options are inserted by build
     private Option[] options = new Option[DEFAULT_ARRAY_SIZE];
-    private int optionIndex = 1;
+    private int optionIndex = 0;
 
-    private final ItemPicker itemPicker;
-    private final RoomSwitcher roomSwitcher;
-    private final ActionHandler actionHandler;
+    private final ActionRegistry actions;
+    // shared by all builders of a world, so equal option texts of different rooms are stored once
+    private final TextTable texts;
 
     private boolean useGoBackFunction = false;
     private boolean addQuitOption = false;
+    private boolean addHintOption = false;
 
     /**
      * constructor of a RoomBuilder
      * helper class for creating a room
-     * @param picker ItemPicker which should be used for the room to create
-     * @param switcher RoomSwitcher which should be used for the room to create
-     * @param handler ActionHandler which should be used for the room to create
+     * @param handler ActionHandler which should be used for the room to create, an ActionRegistry is used directly,
+     *                any other handler is wrapped by a new registry, see ActionRegistry.of
+     */
+    public RoomBuilder(ActionHandler handler) {
+        this(handler, new TextTable());
+    }
+
+    /**
+     * constructor of a RoomBuilder which interns the option texts in a table shared with the other rooms of the world
+     * @param handler ActionHandler which should be used for the room to create, see RoomBuilder(ActionHandler)
+     * @param texts the table of the option texts of the world
      */
-    public RoomBuilder(ItemPicker picker, RoomSwitcher switcher, ActionHandler handler) {
-        itemPicker = picker;
-        roomSwitcher = switcher;
-        actionHandler = handler;
-
-        Option goBackOption = new Option("Gehe zurück zum vorherigen Raum.", "PREV",
-                Action.CHANGE_ROOM, new OptionCondition() {
-            @Override
-            public boolean checkCondition(String[] items) {
-                return roomSwitcher.GetPrevRoom() != null;
-            }
-        });
-        options[0] = goBackOption;
+    public RoomBuilder(ActionHandler handler, TextTable texts) {
+        actions = ActionRegistry.of(handler);
+        this.texts = texts;
     }
 
     /**
@@ -57,6 +65,17 @@ public class RoomBuilder implements RoomSwitcher, ActionHandler {
         return this;
     }
 
+    /**
+     * sets the hint option, which tells the player where to find the next item using the WorldAnalysis of the world
+     * always before the quit option (if active)
+     * @param addHintOption true if this option should be automatically included
+     * @return this RoomBuilder
+     */
+    public RoomBuilder setHintOption(boolean addHintOption) {
+        this.addHintOption = addHintOption;
+        return this;
+    }
+
     /**
      * sets the room name which should be used
      * @param name name of the room
@@ -125,17 +144,15 @@ public class RoomBuilder implements RoomSwitcher, ActionHandler {
         return addOption(option);
     }
 
+    /**
+     * creates an option for picking up an item which is only shown until the item is picked up
+     * adds the option at the end of the current options list
+     * @param optionText display text for this option
+     * @param itemName the name of the item
+     * @return this RoomBuilder
+     */
     public RoomBuilder addItemOptionIfNotPicked(String optionText, String itemName) {
-        return addConditionalOption(optionText, itemName, Action.PICK_ITEM, new OptionCondition() {
-            @Override
-            public boolean checkCondition(String[] items) {
-                for (String item : items) {
-                    if (itemName.equals(item))
-                        return false;
-                }
-                return true;
-            }
-        });
+        return addConditionalOption(optionText, itemName, Action.PICK_ITEM, Conditions.notPicked(itemName));
     }
 
     /**
@@ -151,89 +168,60 @@ public class RoomBuilder implements RoomSwitcher, ActionHandler {
 
     /**
      * creates a room with all given options to this RoomBuilder
+     * the options of the room are created in a single pass: the back option, the added options with compiled
+     * conditions and resolved custom actions, the hint option and the quit option
+     * conditions created by Conditions are compiled, the item ids are linked when the room is added to a World
+     * the CommandIndex for typed commands is built once here and shared by all sessions
      * @return the created room
+     * @throws IllegalArgumentException if a custom action is not registered and the registry has no fallback
      */
     public Room build() {
-        if (addQuitOption) {
-            Option quitOption = new Option("Verlasse das Spiel.", "QUIT", Action.CUSTOM);
-            addOption(quitOption);
-        }
-
-        shrinkOptions();
-        if (!useGoBackFunction)
-            removeFirstOptionsElement();
+        int size = optionIndex + (useGoBackFunction ? 1 : 0) + (addHintOption ? 1 : 0) + (addQuitOption ? 1 : 0);
+        Option[] roomOptions = new Option[size];
+        int index = 0;
+
+        if (useGoBackFunction)
+            roomOptions[index++] = GO_BACK_OPTION;
+        for (int i = 0; i < optionIndex; i++)
+            roomOptions[index++] = resolve(options[i]);
+        if (addHintOption)
+            roomOptions[index++] = HINT_OPTION;
+        if (addQuitOption)
+            roomOptions[index++] = QUIT_OPTION;
 
         return new Room(
                 name,
-                options,
-                itemPicker,
-                this,
-                this
+                roomOptions,
+                actions,
+                new CommandIndex(roomOptions)
         );
     }
 
     /**
-     * removes all null values in the options array
-     */
-    private void shrinkOptions() {
-        Option[] newOptions = new Option[optionIndex];
-        for (int i = 0; i < newOptions.length; i++)
-            newOptions[i] = options[i];
-
-        options = newOptions;
-    }
-
-    /**
-     * removes the first array element where the room back option is always stored
-     */
-    private void removeFirstOptionsElement() {
-        Option[] newOptions = new Option[optionIndex-1];
-        for (int i = 0; i < newOptions.length; i++)
-            newOptions[i] = options[i+1];
-
-        options = newOptions;
-    }
-
-    /**
-     * RoomSwitcher impl for checking first for keyword "PREV" and else calling passed RoomSwitcher
-     * @param to the name of the next room
-     * @return the next room
-     */
-    @Override
-    public Room SwitchRoom(String to) {
-        if (to.equals("PREV"))
-            return GetPrevRoom();
-
-        return roomSwitcher.SwitchRoom(to);
-    }
-
-    /**
-     * just calling passed RoomSwitcher
-     * @param prev room previously visited
+     * returns an option with the interned text, the compiled condition and the id of the custom action in the
+     * ActionRegistry
+     * options with an interned or translated text, without a condition to compile and without a custom action are
+     * returned unchanged, so options can be shared by many rooms
+     * conditions without items are not compiled, checking them by the Condition is as fast as the compiled form
+     * @param option the added option
+     * @return the option for the room
+     * @throws IllegalArgumentException if a custom action is not registered and the registry has no fallback
      */
-    @Override
-    public void SetPrevRoom(Room prev) {
-        roomSwitcher.SetPrevRoom(prev);
-    }
+    private Option resolve(Option option) {
+        OptionCondition condition = option.getOptionCondition();
+        boolean compile = condition instanceof Condition && condition != Conditions.always()
+                && condition != Conditions.hasPrevRoom();
+        boolean custom = option.getOptionAction() == Action.CUSTOM && option.getActionId() < 0;
+        if (!compile && !custom && option.getTextMessage() != null)
+            return option;
 
-    /**
-     * just calling passed RoomSwitcher
-     * @return the previous room
-     */
-    @Override
-    public Room GetPrevRoom() {
-        return roomSwitcher.GetPrevRoom();
-    }
+        TextTable.Text text = texts.intern(option.getOptionText());
+        if (!compile && !custom && option.getEncodedText() == text.encoded)
+            return option;
 
-    /**
-     * ActionHandler impl for handling the quit action first or if not quit calling the passed ActionHandler
-     * @param action the data string stored in an options element
-     */
-    @Override
-    public void handleAction(String action) {
-        if (addQuitOption && action.equals("QUIT"))
-            System.exit(0);
-        actionHandler.handleAction(action);
+        return new Option(text, option.getOptionData(), option.getOptionAction(),
+                compile ? new CompiledCondition((Condition) condition) : condition,
+                custom ? actions.resolve(option.getOptionData()) : option.getActionId(), option.getTargetRoomId());
     }
 
 }
@@ -0,0 +1,101 @@
+/**
+ * the rooms a player came from, stored as room ids in a ring buffer of fixed size
+ * the newest entry is the previous room, when the buffer is full the oldest room is overwritten, so the memory of a
+ * session does not grow with the number of moves and no objects are allocated per move
+ */
+public class RoomHistory {
+
+    private final int[] rooms;
+    // index of the slot for the next room
+    private int head = 0;
+    private int size = 0;
+
+    /**
+     * constructor for an empty history
+     * @param capacity the maximum number of rooms kept
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public RoomHistory(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Die Größe des Raumverlaufs muss positiv sein!");
+        this.rooms = new int[capacity];
+    }
+
+    /**
+     * adds a room as the newest entry, overwrites the oldest entry if the history is full
+     * @param roomId the id of the room
+     */
+    public void push(int roomId) {
+        rooms[head] = roomId;
+        head = (head + 1) % rooms.length;
+        if (size < rooms.length)
+            size++;
+    }
+
+    /**
+     * returns a room of the history without removing it
+     * @param steps the number of steps back, 1 for the previous room
+     * @return the id of the room or -1 if the history has less entries
+     */
+    public int peek(int steps) {
+        if (steps <= 0 || steps > size)
+            return -1;
+        return rooms[(head - steps + rooms.length) % rooms.length];
+    }
+
+    /**
+     * removes the newest entries
+     * @param count the number of entries to remove, at most all entries are removed
+     */
+    public void drop(int count) {
+        count = Math.min(Math.max(count, 0), size);
+        head = (head - count + rooms.length) % rooms.length;
+        size -= count;
+    }
+
+    /**
+     * removes all entries
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    /**
+     * getter for the number of rooms in the history
+     * @return number of rooms
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * getter for the maximum number of rooms in the history
+     * @return the capacity
+     */
+    public int capacity() {
+        return rooms.length;
+    }
+
+    /**
+     * copies the history for snapshots
+     * @return the room ids, the oldest room first
+     */
+    int[] toArray() {
+        int[] result = new int[size];
+        for (int i = 0; i < size; i++)
+            result[i] = peek(size - i);
+        return result;
+    }
+
+    /**
+     * replaces the history, if there are more rooms than the capacity the oldest rooms are dropped
+     * @param roomIds the room ids, the oldest room first
+     */
+    void restore(int[] roomIds) {
+        clear();
+        for (int roomId : roomIds)
+            push(roomId);
+    }
+
+}
@@ -0,0 +1,103 @@
+import java.util.HashMap;
+
+/**
+ * registry of all rooms of a game
+ * every room gets an integer id (its index in the registry) and room names are resolved via a hash map in constant
+ * time instead of scanning all rooms
+ */
+public class RoomRegistry implements RoomSource {
+
+    // option data of Action.CHANGE_ROOM options which is resolved by the RoomBuilder instead of the registry
+    private static final String PREV_ROOM_KEYWORD = "PREV";
+
+    private final Room[] rooms;
+    private final HashMap<String, Room> roomsByName;
+
+    /**
+     * constructor for a room registry
+     * assigns the ids of the rooms in the order of the array
+     * @param rooms all rooms of the game, the first room is the start room
+     * @throws IllegalArgumentException if two rooms have the same name
+     */
+    public RoomRegistry(Room[] rooms) {
+        this.rooms = rooms;
+        roomsByName = new HashMap<>(rooms.length * 2);
+
+        for (int i = 0; i < rooms.length; i++) {
+            Room room = rooms[i];
+            if (roomsByName.put(room.name, room) != null)
+                throw new IllegalArgumentException("Raum mit dem Namen " + room.name + " existiert mehrfach!");
+            room.id = i;
+        }
+    }
+
+    /**
+     * checks for every option with Action.CHANGE_ROOM in every room if the room it points to exists
+     * should be called once after all rooms are built, so a missing room is found at startup and not when the option
+     * is chosen
+     * @throws IllegalStateException if a room points to a room which is not registered
+     */
+    public void validate() {
+        for (Room room : rooms) {
+            for (Option option : room.options) {
+                if (option.getOptionAction() != Action.CHANGE_ROOM)
+                    continue;
+                if (option.getOptionData().equals(PREV_ROOM_KEYWORD))
+                    continue;
+                if (!roomsByName.containsKey(option.getOptionData()))
+                    throw new IllegalStateException("Raum mit dem Namen " + option.getOptionData() +
+                            " im Raum " + room.name + " nicht gefunden!");
+            }
+        }
+    }
+
+    /**
+     * returns the room with the given name
+     * @param name the name of the room
+     * @return the room or null if no room with this name exists
+     */
+    @Override
+    public Room get(String name) {
+        return roomsByName.get(name);
+    }
+
+    /**
+     * returns the room with the given id
+     * @param id the id of the room
+     * @return the room with this id
+     */
+    @Override
+    public Room get(int id) {
+        return rooms[id];
+    }
+
+    /**
+     * returns the id of the room with the given name
+     * @param name the name of the room
+     * @return the id or -1 if no room with this name exists
+     */
+    @Override
+    public int idOf(String name) {
+        Room room = roomsByName.get(name);
+        return room == null ? -1 : room.id;
+    }
+
+    /**
+     * returns the room the game starts in
+     * @return the first registered room
+     */
+    @Override
+    public Room getStartRoom() {
+        return rooms[0];
+    }
+
+    /**
+     * getter for the number of registered rooms
+     * @return number of rooms
+     */
+    @Override
+    public int size() {
+        return rooms.length;
+    }
+
+}
@@ -0,0 +1,71 @@
+/**
+ * source of the rooms of a world
+ * rooms are identified by their id, an index from 0 to size() - 1, the room with id 0 is the start room
+ * implementations must be safe to use from many sessions at the same time
+ */
+public interface RoomSource {
+
+    /**
+     * returns the room with the given id
+     * @param id the id of the room
+     * @return the room with this id
+     */
+    Room get(int id);
+
+    /**
+     * returns the room with the given name
+     * @param name the name of the room
+     * @return the room or null if no room with this name exists
+     */
+    Room get(String name);
+
+    /**
+     * returns the id of the room with the given name
+     * @param name the name of the room
+     * @return the id or -1 if no room with this name exists
+     */
+    int idOf(String name);
+
+    /**
+     * appends the UTF-8 encoded name of a room to a renderer
+     * the default implementation requests the room, sources which can read the names without building the rooms
+     * should override it
+     * @param id the id of the room
+     * @param out the renderer
+     */
+    default void appendName(int id, OutputRenderer out) {
+        out.append(get(id).encodedName);
+    }
+
+    /**
+     * returns the room the game starts in
+     * @return the room with id 0
+     */
+    default Room getStartRoom() {
+        return get(0);
+    }
+
+    /**
+     * getter for the number of rooms
+     * @return number of rooms
+     */
+    int size();
+
+    /**
+     * computes the fingerprint of the UTF-8 encoded names of all rooms in the order of their ids, see
+     * World.getFingerprint
+     * the default implementation requests every room, sources which can read the names without building the rooms
+     * should override it
+     * @return the fingerprint
+     */
+    default long fingerprint() {
+        long fingerprint = World.FINGERPRINT_BASIS;
+        for (int id = 0; id < size(); id++) {
+            for (byte b : get(id).encodedName)
+                fingerprint = World.fingerprint(fingerprint, b);
+            fingerprint = World.fingerprint(fingerprint, (byte) 0);
+        }
+        return fingerprint;
+    }
+
+}
@@ -0,0 +1,44 @@
+/**
+ * an event waiting in a TimingWheel, returned by schedule so the event can be cancelled
+ * the event is linked into the list of its slot directly, so scheduling and cancelling need no other objects
+ */
+public final class ScheduledEvent {
+
+    final Runnable task;
+    final long deadline;
+    final TimingWheel wheel;
+
+    // position in the wheel, slot is -1 if the event is not scheduled anymore
+    int slot = -1;
+    ScheduledEvent prev;
+    ScheduledEvent next;
+
+    /**
+     * constructor for an event, called by the TimingWheel
+     * @param wheel the wheel the event is scheduled in
+     * @param deadline the tick the event is due at
+     * @param task the work of the event
+     */
+    ScheduledEvent(TimingWheel wheel, long deadline, Runnable task) {
+        this.wheel = wheel;
+        this.deadline = deadline;
+        this.task = task;
+    }
+
+    /**
+     * getter for the tick the event is due at
+     * @return the deadline in ticks of the wheel
+     */
+    public long getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * cancels the event, it is removed from its wheel in constant time
+     * @return false if the event already fired or was cancelled before
+     */
+    public boolean cancel() {
+        return wheel.cancel(this);
+    }
+
+}
@@ -0,0 +1,205 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * append-only journal of the options chosen in all sessions of a SessionStore
+ * appending only copies a record into a memory buffer, a background thread writes the buffer and syncs the file to
+ * the disk once per flush interval, so one fsync covers the choices of all sessions in that interval
+ * choices of the last flush interval are lost if the process crashes
+ * the journal is split into numbered segment files, rotate starts a new segment, so the SessionStore can delete old
+ * segments once all sessions with choices in them have written a newer snapshot
+ *
+ * every record consists of the session id (long), the step (long) and the index of the chosen option (int)
+ */
+public class SessionJournal implements AutoCloseable {
+
+    static final int RECORD_SIZE = 2 * Long.BYTES + Integer.BYTES;
+
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+
+    // the file of the current segment, guarded by writeLock
+    private FileChannel channel;
+    private final long flushIntervalMillis;
+    private final Thread flusher;
+    private volatile boolean closed = false;
+
+    // appended records are collected in activeBuffer, spareBuffer is written to the file by flush
+    private final Object bufferLock = new Object();
+    private final Object writeLock = new Object();
+    private ByteBuffer activeBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer spareBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    // number of the segment new records are appended to and the records appended to it, guarded by bufferLock
+    private long segment;
+    private long segmentRecords = 0;
+
+    /**
+     * constructor for a journal appending to a file
+     * @param file the path of the journal file, created if it does not exist
+     * @param segment the number of the segment stored in the file
+     * @param flushIntervalMillis the time between two writes of the buffered records
+     * @throws IOException if the file can not be opened
+     */
+    public SessionJournal(Path file, long segment, long flushIntervalMillis) throws IOException {
+        this.channel = openSegment(file);
+        this.segment = segment;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flusher = new Thread(this::flushLoop, "session-journal-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * appends a chosen option to the buffer, it is written to the file with the next flush
+     * @param sessionId the id of the session
+     * @param step the number of options chosen in the session before this choice
+     * @param choice the index of the chosen option
+     */
+    public void append(long sessionId, long step, int choice) {
+        synchronized (bufferLock) {
+            if (activeBuffer.remaining() < RECORD_SIZE) {
+                ByteBuffer newBuffer = ByteBuffer.allocate(activeBuffer.capacity() * 2);
+                activeBuffer.flip();
+                newBuffer.put(activeBuffer);
+                activeBuffer = newBuffer;
+            }
+            activeBuffer.putLong(sessionId).putLong(step).putInt(choice);
+            segmentRecords++;
+        }
+    }
+
+    /**
+     * getter for the number of the segment new records are appended to
+     * @return the segment number
+     */
+    public long getSegment() {
+        synchronized (bufferLock) {
+            return segment;
+        }
+    }
+
+    /**
+     * getter for the number of records appended to the current segment
+     * @return number of records
+     */
+    public long getSegmentRecords() {
+        synchronized (bufferLock) {
+            return segmentRecords;
+        }
+    }
+
+    /**
+     * writes all buffered records to the current segment and continues with a new segment file
+     * records appended after the buffers are swapped belong to the new segment
+     * @param file the path of the file of the next segment
+     * @throws IOException if writing the current segment or opening the next segment fails
+     */
+    public void rotate(Path file) throws IOException {
+        synchronized (writeLock) {
+            ByteBuffer buffer;
+            synchronized (bufferLock) {
+                buffer = activeBuffer;
+                activeBuffer = spareBuffer;
+                spareBuffer = buffer;
+                segment++;
+                segmentRecords = 0;
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(false);
+            buffer.clear();
+
+            channel.close();
+            channel = openSegment(file);
+        }
+    }
+
+    /**
+     * writes all buffered records to the file and syncs it to the disk
+     * @throws IOException if writing fails
+     */
+    public void flush() throws IOException {
+        synchronized (writeLock) {
+            ByteBuffer buffer;
+            synchronized (bufferLock) {
+                if (activeBuffer.position() == 0)
+                    return;
+                buffer = activeBuffer;
+                activeBuffer = spareBuffer;
+                spareBuffer = buffer;
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(false);
+            buffer.clear();
+        }
+    }
+
+    /**
+     * flushes the journal once per flush interval until it is closed
+     */
+    private void flushLoop() {
+        while (!closed) {
+            try {
+                Thread.sleep(flushIntervalMillis);
+                flush();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Journal konnte nicht geschrieben werden: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * stops the background thread, writes all buffered records and closes the file
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        synchronized (writeLock) {
+            channel.close();
+        }
+    }
+
+    /**
+     * opens the file of a segment for appending
+     * @param file the path of the file, created if it does not exist
+     * @return the channel
+     * @throws IOException if the file can not be opened
+     */
+    private static FileChannel openSegment(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * reads all complete records of a journal file
+     * an incomplete record at the end, for example after a crash while writing, is ignored
+     * @param file the path of the journal file
+     * @return a buffer containing all complete records or an empty buffer if the file does not exist
+     * @throws IOException if the file can not be read
+     */
+    public static ByteBuffer readRecords(Path file) throws IOException {
+        if (!Files.exists(file))
+            return ByteBuffer.allocate(0);
+
+        byte[] bytes = Files.readAllBytes(file);
+        return ByteBuffer.wrap(bytes, 0, bytes.length - bytes.length % RECORD_SIZE);
+    }
+
+}
@@ -0,0 +1,372 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * persists the state of many sessions of one world in a directory
+ * every session has a compact binary snapshot (current room, room history, counters and the inventory bits) which is
+ * rewritten regularly, all options chosen between two snapshots are appended to a SessionJournal shared by all
+ * sessions
+ * when the store is opened the journal is replayed onto the snapshots, so a session can be resumed from its snapshot
+ * alone and the world only has to be in memory, not read again
+ * while the store is open the journal is rotated into a new segment when a snapshot is written and the current segment
+ * holds "textadventure.journal.rotate" records (default 65536), a segment is deleted when every session with choices
+ * in it has written a newer snapshot, sessions write a last snapshot when they end, see GameEngine.run
+ * every snapshot contains the fingerprint of its world, see World.getFingerprint, so a snapshot of another world or
+ * of another version of the world is rejected instead of restoring wrong rooms or items
+ */
+public class SessionStore implements AutoCloseable {
+
+    private static final int SNAPSHOT_MAGIC = 0x54415353;
+    private static final int SNAPSHOT_VERSION = 3;
+    // journal of stores written before the journal was split into segments
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    private static final long ROTATE_RECORDS = Math.max(1, Long.getLong("textadventure.journal.rotate", 65536));
+
+    private final Path directory;
+    // the latest version of the world, holds no replaced version
+    private final Supplier<World> world;
+    private final int snapshotInterval;
+    private final SessionJournal journal;
+    // per session id the oldest segment with choices which are not contained in a snapshot yet
+    private final ConcurrentHashMap<Long, Long> pendingSegments = new ConcurrentHashMap<>();
+    // the oldest segment file which was not deleted yet, guarded by this
+    private long oldestSegment = 0;
+
+    /**
+     * constructor for a session store
+     * @param directory the directory of the snapshots and the journal
+     * @param world the world of all sessions
+     * @param snapshotInterval the number of chosen options after which a new snapshot is written at the next room
+     *                         change
+     * @param journal the journal for the chosen options
+     */
+    private SessionStore(Path directory, World world, int snapshotInterval, SessionJournal journal) {
+        this.directory = directory;
+        this.world = world.versions();
+        this.snapshotInterval = snapshotInterval;
+        this.journal = journal;
+    }
+
+    /**
+     * opens a session store, replays the journal of the last run onto the snapshots and starts a new journal
+     * @param directory the directory of the snapshots and the journal, created if it does not exist
+     * @param world the world of all sessions, must be the same world the snapshots were created in
+     * @param snapshotInterval the number of chosen options after which a new snapshot is written at the next room
+     *                         change
+     * @param flushIntervalMillis the time between two syncs of the journal
+     * @return the opened store
+     * @throws IOException if the directory can not be read or written
+     */
+    public static SessionStore open(Path directory, World world, int snapshotInterval, long flushIntervalMillis)
+            throws IOException {
+        Files.createDirectories(directory);
+        SessionStore recovery = new SessionStore(directory, world, snapshotInterval, null);
+        recovery.replayJournal();
+
+        SessionJournal journal = new SessionJournal(segmentPath(directory, 0), 0, flushIntervalMillis);
+        return new SessionStore(directory, world, snapshotInterval, journal);
+    }
+
+    /**
+     * opens a persisted session, restores its last snapshot if there is one and starts journaling its choices
+     * @param sessionId the id of the session
+     * @param input the input of the player
+     * @param output the renderer for all messages to the player
+     * @return the session, in the start room if the session was not persisted before
+     * @throws IOException if the snapshot can not be read
+     */
+    public GameSession openSession(long sessionId, InputStream input, OutputRenderer output) throws IOException {
+        GameSession session = new GameSession(world.get(), input, output);
+        loadSnapshot(sessionId, session);
+        session.attach(this, sessionId);
+        return session;
+    }
+
+    /**
+     * getter for the number of chosen options after which a session writes a new snapshot
+     * @return the snapshot interval
+     */
+    int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * marks that a session appends choices to the journal which are not contained in a snapshot, the current segment
+     * is kept until the session writes its next snapshot
+     * must be called before the first journalChoice after a snapshot
+     * @param sessionId the id of the session
+     */
+    void markJournalPending(long sessionId) {
+        pendingSegments.putIfAbsent(sessionId, journal.getSegment());
+    }
+
+    /**
+     * appends a chosen option of a session to the journal
+     * @param sessionId the id of the session
+     * @param step the number of options chosen in the session before this choice
+     * @param choice the index of the chosen option
+     */
+    void journalChoice(long sessionId, long step, int choice) {
+        journal.append(sessionId, step, choice);
+    }
+
+    /**
+     * writes a snapshot of a session and replaces the previous snapshot atomically
+     * afterwards the journal is rotated if the current segment is full and segments which are no longer needed are
+     * deleted
+     * @param sessionId the id of the session
+     * @param session the session, must not be changed by another thread while the snapshot is written
+     * @throws UncheckedIOException if the snapshot or the journal can not be written
+     */
+    void saveSnapshot(long sessionId, GameSession session) {
+        writeSnapshot(sessionId, session);
+        if (journal == null)
+            return;
+
+        pendingSegments.remove(sessionId);
+        try {
+            rotateJournal();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Journal konnte nicht rotiert werden", e);
+        }
+    }
+
+    /**
+     * starts a new journal segment if the current segment is full and deletes all segments older than the oldest
+     * segment with choices of a session which are not contained in a snapshot
+     * @throws IOException if the journal can not be written or a segment can not be deleted
+     */
+    private synchronized void rotateJournal() throws IOException {
+        if (journal.getSegmentRecords() >= ROTATE_RECORDS)
+            journal.rotate(segmentPath(directory, journal.getSegment() + 1));
+
+        long keep = journal.getSegment();
+        if (oldestSegment == keep)
+            return;
+        for (long segment : pendingSegments.values())
+            keep = Math.min(keep, segment);
+        for (; oldestSegment < keep; oldestSegment++)
+            Files.deleteIfExists(segmentPath(directory, oldestSegment));
+    }
+
+    /**
+     * writes a snapshot of a session and replaces the previous snapshot atomically
+     * @param sessionId the id of the session
+     * @param session the session, must not be changed by another thread while the snapshot is written
+     * @throws UncheckedIOException if the snapshot can not be written
+     */
+    private void writeSnapshot(long sessionId, GameSession session) {
+        long[] inventoryWords = session.getInventoryWords();
+        int[] history = session.getHistoryRoomIds();
+        ByteBuffer buffer = ByteBuffer.allocate(5 * Integer.BYTES + 3 * Long.BYTES + history.length * Integer.BYTES
+                + inventoryWords.length * Long.BYTES);
+        buffer.putInt(SNAPSHOT_MAGIC)
+                .putInt(SNAPSHOT_VERSION)
+                .putLong(session.getWorld().getFingerprint())
+                .putInt(session.getCurrentRoom().id)
+                .putInt(history.length);
+        for (int roomId : history)
+            buffer.putInt(roomId);
+        buffer.putLong(session.getStepCount())
+                .putLong(session.getMoveCount())
+                .putInt(inventoryWords.length);
+        for (long word : inventoryWords)
+            buffer.putLong(word);
+        buffer.flip();
+
+        Path snapshot = snapshotPath(sessionId);
+        Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+                channel.force(false);
+            }
+            Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Snapshot der Sitzung " + sessionId + " konnte nicht geschrieben werden", e);
+        }
+    }
+
+    /**
+     * syncs the directory of the store, so a moved snapshot is not lost with the directory entry after a crash
+     * @throws IOException if the directory can not be synced
+     */
+    private void syncDirectory() throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (AccessDeniedException e) {
+            // directories can not be opened on every platform, for example on Windows, the move is not synced there
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * restores a session from its snapshot if there is one
+     * the snapshot must have been written in a world with the same fingerprint as the world of the session
+     * @param sessionId the id of the session
+     * @param session the session to restore
+     * @throws IOException if the snapshot can not be read, is damaged or belongs to another world
+     */
+    private void loadSnapshot(long sessionId, GameSession session) throws IOException {
+        Path snapshot = snapshotPath(sessionId);
+        if (!Files.exists(snapshot))
+            return;
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshot));
+        try {
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION)
+                throw new IOException("Snapshot der Sitzung " + sessionId + " ist beschädigt!");
+            if (buffer.getLong() != session.getWorld().getFingerprint())
+                throw new IOException("Snapshot der Sitzung " + sessionId + " gehört zu einer anderen Welt!");
+
+            int roomCount = session.getWorld().getRooms().size();
+            int currentRoomId = checkRoomId(buffer.getInt(), roomCount, sessionId);
+            int[] history = new int[buffer.getInt()];
+            for (int i = 0; i < history.length; i++)
+                history[i] = checkRoomId(buffer.getInt(), roomCount, sessionId);
+            long stepCount = buffer.getLong();
+            long moveCount = buffer.getLong();
+            long[] inventoryWords = new long[buffer.getInt()];
+            for (int i = 0; i < inventoryWords.length; i++)
+                inventoryWords[i] = buffer.getLong();
+
+            session.restore(currentRoomId, -1, stepCount, moveCount, inventoryWords);
+            session.restoreHistory(history);
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Snapshot der Sitzung " + sessionId + " ist beschädigt!", e);
+        }
+    }
+
+    /**
+     * checks a room id read from a snapshot
+     * @param roomId the room id
+     * @param roomCount the number of rooms of the world
+     * @param sessionId the id of the session
+     * @return the room id
+     * @throws IOException if the world has no room with this id
+     */
+    private static int checkRoomId(int roomId, int roomCount, long sessionId) throws IOException {
+        if (roomId < 0 || roomId >= roomCount)
+            throw new IOException("Snapshot der Sitzung " + sessionId + " ist beschädigt!");
+        return roomId;
+    }
+
+    /**
+     * replays all choices of the journal segments onto the snapshots of their sessions, writes new snapshots and
+     * deletes the segments
+     * choices which are already contained in a snapshot are skipped, the choices of a session whose snapshot belongs
+     * to another world are dropped
+     * @throws IOException if the journal or a snapshot can not be read or written
+     */
+    private void replayJournal() throws IOException {
+        // segments older than the oldest needed segment may already be deleted, so the numbers can start above 0
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not a segment of this store
+                }
+            }
+        }
+        Collections.sort(segments);
+
+        List<Path> journalFiles = new ArrayList<>();
+        journalFiles.add(directory.resolve(JOURNAL_FILE));
+        for (long segment : segments)
+            journalFiles.add(segmentPath(directory, segment));
+
+        Map<Long, List<long[]>> choicesBySession = new LinkedHashMap<>();
+        for (Path journalFile : journalFiles) {
+            ByteBuffer records = SessionJournal.readRecords(journalFile);
+            while (records.remaining() >= SessionJournal.RECORD_SIZE) {
+                long sessionId = records.getLong();
+                long step = records.getLong();
+                int choice = records.getInt();
+                choicesBySession.computeIfAbsent(sessionId, id -> new ArrayList<>()).add(new long[] {step, choice});
+            }
+        }
+
+        World latest = world.get();
+        for (Map.Entry<Long, List<long[]>> entry : choicesBySession.entrySet()) {
+            GameSession session = new GameSession(latest, InputStream.nullInputStream(), OutputRenderer.discarding());
+            try {
+                loadSnapshot(entry.getKey(), session);
+            } catch (IOException e) {
+                System.err.println(e.getMessage() + " Das Journal der Sitzung wird verworfen.");
+                continue;
+            }
+            GameEngine engine = new GameEngine(session);
+
+            for (long[] choice : entry.getValue()) {
+                if (choice[0] < session.getStepCount())
+                    continue;
+                if (choice[0] > session.getStepCount() || session.isQuit() || !engine.applyChoice((int) choice[1]))
+                    break;
+            }
+            saveSnapshot(entry.getKey(), session);
+        }
+
+        for (Path journalFile : journalFiles)
+            Files.deleteIfExists(journalFile);
+    }
+
+    /**
+     * returns the path of the snapshot of a session
+     * @param sessionId the id of the session
+     * @return the path of the snapshot file
+     */
+    private Path snapshotPath(long sessionId) {
+        return directory.resolve(sessionId + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * returns the path of a journal segment
+     * @param directory the directory of the store
+     * @param segment the number of the segment
+     * @return the path of the segment file
+     */
+    private static Path segmentPath(Path directory, long segment) {
+        return directory.resolve(SEGMENT_PREFIX + segment + SEGMENT_SUFFIX);
+    }
+
+    /**
+     * writes all buffered choices and closes the journal
+     * @throws IOException if the journal can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        journal.close();
+    }
+
+}
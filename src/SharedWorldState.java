@@ -0,0 +1,264 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * state of a world shared by all sessions which play together, see GameSession.joinSharedWorld
+ * an item picked up in a room is gone from this room for all players, and every player sees the other players in the
+ * same room
+ * the rooms are guarded by striped locks, a room only locks its own stripe, so players in unrelated rooms do not
+ * contend, every stripe has a version which changes when an item is taken, sessions read it without locking to check
+ * if their cached options are still valid
+ * when the world is replaced by a new version the taken items are carried over to the state of the new world, see
+ * carryOverTo
+ */
+public class SharedWorldState {
+
+    private static final int MAX_STRIPES = 1024;
+
+    private final World world;
+    private final Object[] locks;
+    private final int stripeMask;
+    private final AtomicLongArray versions;
+    // state of every room, created when the first player enters or an item is taken, guarded by the lock of the stripe
+    private final RoomState[] rooms;
+    // the state of the next version of the world, set once by carryOverTo
+    private volatile SharedWorldState successor = null;
+
+    /**
+     * constructor for the shared state of a world, created by World.getSharedState
+     * @param world the world
+     */
+    SharedWorldState(World world) {
+        this.world = world;
+        int roomCount = world.getRooms().size();
+        int stripes = Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(roomCount - 1, 1)) << 1);
+        this.locks = new Object[stripes];
+        for (int i = 0; i < stripes; i++)
+            locks[i] = new Object();
+        this.stripeMask = stripes - 1;
+        this.versions = new AtomicLongArray(stripes);
+        this.rooms = new RoomState[roomCount];
+    }
+
+    /**
+     * getter for the world of this state
+     * @return the world
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * returns the version of the items of a room without locking, the version changes every time an item is taken in
+     * this room or another room of the same stripe
+     * @param roomId the id of the room
+     * @return the version
+     */
+    long getVersion(int roomId) {
+        return versions.get(roomId & stripeMask);
+    }
+
+    /**
+     * takes an item from a room for the session picking it up
+     * @param roomId the id of the room
+     * @param item the name of the item
+     * @return false if another player already took the item from this room
+     */
+    boolean take(int roomId, String item) {
+        int itemId = world.getItems().idOf(item);
+        int stripe = roomId & stripeMask;
+        synchronized (locks[stripe]) {
+            RoomState room = stateOf(roomId);
+            if (room.isTaken(itemId))
+                return false;
+
+            room.addTaken(itemId);
+            versions.incrementAndGet(stripe);
+        }
+
+        // players who did not switch to the new world yet must not take the item again for the others
+        SharedWorldState next = successor;
+        if (next != null)
+            carryOver(next, roomId, itemId);
+        return true;
+    }
+
+    /**
+     * copies the taken items to the state of the next version of the world, rooms and items are mapped by their names
+     * items taken in this state later are also taken in the next state, so a reload never respawns an item
+     * @param next the shared state of the new world, must not be published to the sessions yet
+     */
+    void carryOverTo(SharedWorldState next) {
+        successor = next;
+        for (int roomId = 0; roomId < rooms.length; roomId++) {
+            int[] taken;
+            synchronized (locks[roomId & stripeMask]) {
+                RoomState room = rooms[roomId];
+                if (room == null || room.takenCount == 0)
+                    continue;
+                taken = Arrays.copyOf(room.takenItems, room.takenCount);
+            }
+            for (int itemId : taken)
+                carryOver(next, roomId, itemId);
+        }
+    }
+
+    /**
+     * takes an item in the state of the next version of the world if the room and the item still exist there
+     * @param next the shared state of the new world
+     * @param roomId the id of the room in this world
+     * @param itemId the id of the item in this world
+     */
+    private void carryOver(SharedWorldState next, int roomId, int itemId) {
+        int nextRoomId = next.world.getRooms().idOf(world.getRooms().get(roomId).name);
+        String item = world.getItems().nameOf(itemId);
+        if (nextRoomId >= 0 && next.world.getItems().idOf(item) >= 0)
+            next.take(nextRoomId, item);
+    }
+
+    /**
+     * checks if an item was taken from a room
+     * @param roomId the id of the room
+     * @param item the name of the item
+     * @return true if a player took the item from this room
+     */
+    boolean isTaken(int roomId, String item) {
+        int itemId = world.getItems().idOf(item);
+        synchronized (locks[roomId & stripeMask]) {
+            RoomState room = rooms[roomId];
+            return room != null && room.isTaken(itemId);
+        }
+    }
+
+    /**
+     * adds a player to a room
+     * @param roomId the id of the room
+     * @param session the session of the player
+     */
+    void enter(int roomId, GameSession session) {
+        synchronized (locks[roomId & stripeMask]) {
+            stateOf(roomId).addPlayer(session);
+        }
+    }
+
+    /**
+     * removes a player from a room
+     * @param roomId the id of the room
+     * @param session the session of the player
+     */
+    void leave(int roomId, GameSession session) {
+        synchronized (locks[roomId & stripeMask]) {
+            RoomState room = rooms[roomId];
+            if (room != null)
+                room.removePlayer(session);
+        }
+    }
+
+    /**
+     * counts the players in a room
+     * @param roomId the id of the room
+     * @return the number of players
+     */
+    public int getPlayerCount(int roomId) {
+        synchronized (locks[roomId & stripeMask]) {
+            RoomState room = rooms[roomId];
+            return room == null ? 0 : room.playerCount;
+        }
+    }
+
+    /**
+     * renders the names of the other players in a room, nothing is rendered if the player is alone
+     * @param roomId the id of the room
+     * @param session the session of the player who gets the message
+     * @param out the renderer of the player
+     */
+    void appendOtherPlayers(int roomId, GameSession session, OutputRenderer out) {
+        synchronized (locks[roomId & stripeMask]) {
+            RoomState room = rooms[roomId];
+            if (room == null || room.playerCount <= 1)
+                return;
+
+            out.append(Message.PLAYERS_HERE);
+            boolean first = true;
+            for (int i = 0; i < room.playerCount; i++) {
+                if (room.players[i] == session)
+                    continue;
+                if (!first)
+                    out.append(", ");
+                out.append(room.players[i].getPlayerName());
+                first = false;
+            }
+            out.newLine();
+        }
+    }
+
+    /**
+     * returns the state of a room and creates it if it does not exist, the lock of the stripe must be held
+     * @param roomId the id of the room
+     * @return the state of the room
+     */
+    private RoomState stateOf(int roomId) {
+        RoomState room = rooms[roomId];
+        if (room == null)
+            rooms[roomId] = room = new RoomState();
+        return room;
+    }
+
+    /**
+     * the taken items and the players of a single room, a room has few items and players, so both are small arrays
+     */
+    private static final class RoomState {
+        private int[] takenItems = new int[2];
+        private int takenCount = 0;
+        private GameSession[] players = new GameSession[4];
+        private int playerCount = 0;
+
+        /**
+         * checks if an item was taken
+         * @param itemId the id of the item
+         * @return true if the item was taken
+         */
+        boolean isTaken(int itemId) {
+            for (int i = 0; i < takenCount; i++) {
+                if (takenItems[i] == itemId)
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * marks an item as taken
+         * @param itemId the id of the item
+         */
+        void addTaken(int itemId) {
+            if (takenCount == takenItems.length)
+                takenItems = Arrays.copyOf(takenItems, takenCount * 2);
+            takenItems[takenCount++] = itemId;
+        }
+
+        /**
+         * adds a player
+         * @param session the session of the player
+         */
+        void addPlayer(GameSession session) {
+            if (playerCount == players.length)
+                players = Arrays.copyOf(players, playerCount * 2);
+            players[playerCount++] = session;
+        }
+
+        /**
+         * removes a player, the last player takes its place
+         * @param session the session of the player
+         */
+        void removePlayer(GameSession session) {
+            for (int i = 0; i < playerCount; i++) {
+                if (players[i] == session) {
+                    players[i] = players[--playerCount];
+                    players[playerCount] = null;
+                    return;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,276 @@
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * explores every state of a world a player can reach by choosing options, a state is the current room, the previous
+ * room and the picked up items
+ * older rooms of the room history are not part of a state, going back from the previous room is explored as if the
+ * session started there
+ * every option of every state is executed with the real rooms and options in a GameSession without input and output,
+ * so errors of rooms, options and custom actions are found without playing the game
+ *
+ * a state is encoded as the two room ids and the id of its inventory, inventories are interned so states with the same
+ * items share one copy of the inventory words
+ * the encoded states are stored in a concurrent set, every state is explored by its own task in a work-stealing
+ * ForkJoinPool using all cores
+ * custom actions are executed like in the game, so they must not wait for input and must be safe to run on many
+ * threads at the same time
+ */
+public class StateExplorer {
+
+    // number of failures kept for the result, further failures are only counted
+    private static final int MAX_REPORTED_FAILURES = 100;
+
+    private final World world;
+    private final long maxStates;
+
+    // state of a running exploration
+    private final Set<State> visited = ConcurrentHashMap.newKeySet();
+    private final Map<InternedInventory, InternedInventory> inventories = new ConcurrentHashMap<>();
+    private final AtomicInteger inventoryCount = new AtomicInteger();
+    private final AtomicLong stateCount = new AtomicLong();
+    private final AtomicLong transitionCount = new AtomicLong();
+    private final AtomicLong quitCount = new AtomicLong();
+    private final AtomicInteger failureCount = new AtomicInteger();
+    private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+    private volatile boolean truncated = false;
+    private final ThreadLocal<GameEngine> engines;
+
+    /**
+     * constructor for an explorer
+     * @param world the world to explore
+     * @param maxStates the maximum number of states to explore, the number of states grows exponentially with the
+     *                  number of items
+     */
+    public StateExplorer(World world, long maxStates) {
+        this.world = world;
+        this.maxStates = maxStates;
+        this.engines = ThreadLocal.withInitial(() -> new GameEngine(
+                new GameSession(world, InputStream.nullInputStream(), OutputRenderer.discarding())));
+    }
+
+    /**
+     * explores all states reachable from the start of a new session
+     * can only be called once per explorer
+     * @return the result of the exploration
+     */
+    public ExplorationResult explore() {
+        long startTime = System.nanoTime();
+        InternedInventory empty = intern(new long[(world.getItems().size() + 63) >>> 6]);
+        State start = new State(world.getStartRoom().id, -1, empty);
+        visited.add(start);
+        stateCount.incrementAndGet();
+
+        ForkJoinPool pool = new ForkJoinPool();
+        try {
+            pool.invoke(new ExploreTask(null, start, empty));
+        } finally {
+            pool.shutdown();
+        }
+
+        return new ExplorationResult(stateCount.get(), transitionCount.get(), quitCount.get(), failureCount.get(),
+                failures.toArray(new String[0]), truncated, (System.nanoTime() - startTime) / 1_000_000);
+    }
+
+    /**
+     * executes every available option of a state and forks a task for every new state
+     * failures of options are recorded and the option is skipped
+     * @param task the task exploring the state
+     * @param state the state to explore
+     * @param inventory the interned inventory of the state
+     */
+    private void expand(ExploreTask task, State state, InternedInventory inventory) {
+        GameEngine engine = engines.get();
+        GameSession session = engine.getSession();
+
+        session.restore(state.room(), state.prevRoom(), 0, 0, inventory.words);
+        int optionCount = session.getCurrentRoom().getAvailableOptions(session);
+
+        for (int choice = 0; choice < optionCount; choice++) {
+            session.restore(state.room(), state.prevRoom(), 0, 0, inventory.words);
+            Room room = session.getCurrentRoom();
+            room.getAvailableOptions(session);
+            Option option = session.availableOptions[choice];
+            transitionCount.incrementAndGet();
+
+            try {
+                engine.applyChoice(choice);
+            } catch (RuntimeException e) {
+                recordFailure(session, state, inventory, choice, option, e);
+                continue;
+            }
+            if (session.isQuit()) {
+                quitCount.incrementAndGet();
+                continue;
+            }
+
+            InternedInventory nextInventory = intern(session.getInventoryWords());
+            State next = new State(session.getCurrentRoom().id, session.getPrevRoomId(), nextInventory);
+            if (stateCount.get() >= maxStates) {
+                truncated = true;
+                continue;
+            }
+            if (!visited.add(next))
+                continue;
+            stateCount.incrementAndGet();
+            task.addToPendingCount(1);
+            new ExploreTask(task, next, nextInventory).fork();
+        }
+    }
+
+    /**
+     * returns the shared copy of an inventory, the first copy of every inventory gets a new id
+     * @param words the words of the inventory
+     * @return the interned inventory
+     */
+    private InternedInventory intern(long[] words) {
+        InternedInventory inventory = new InternedInventory(words, 0);
+        InternedInventory existing = inventories.get(inventory);
+        if (existing != null)
+            return existing;
+
+        inventory = new InternedInventory(words, inventoryCount.getAndIncrement());
+        existing = inventories.putIfAbsent(inventory, inventory);
+        return existing != null ? existing : inventory;
+    }
+
+    /**
+     * records a failed option
+     * @param session the session the option failed in
+     * @param state the state the option was chosen in
+     * @param inventory the interned inventory of the state
+     * @param choice the index of the option in the available options
+     * @param option the option
+     * @param e the exception thrown by the option
+     */
+    private void recordFailure(GameSession session, State state, InternedInventory inventory, int choice, Option option,
+                               RuntimeException e) {
+        if (failureCount.incrementAndGet() > MAX_REPORTED_FAILURES)
+            return;
+
+        // restore the state, the failed option may have changed the session before it failed
+        session.restore(state.room(), state.prevRoom(), 0, 0, inventory.words);
+        Room prevRoom = session.GetPrevRoom();
+        String kind = e instanceof ArrayIndexOutOfBoundsException ? "Leere Itemliste" : e.getClass().getSimpleName();
+        failures.add("Raum " + session.getCurrentRoom().name
+                + " (vorher " + (prevRoom == null ? "-" : prevRoom.name)
+                + ", Items " + Arrays.toString(session.getAllItems())
+                + "), Option " + choice + " \"" + option.getOptionText() + "\": "
+                + kind + ": " + e.getMessage());
+    }
+
+    /**
+     * explores a single state and forks a task for every new state
+     * the tasks are never joined, a task completes when all tasks forked by it completed, so the stack does not grow
+     * with the length of the paths through the world
+     */
+    @SuppressWarnings("serial")
+    private final class ExploreTask extends CountedCompleter<Void> {
+        private final State state;
+        private final InternedInventory inventory;
+
+        /**
+         * constructor for a task exploring a state
+         * @param parent the task which found the state or null for the start state
+         * @param state the state to explore
+         * @param inventory the interned inventory of the state
+         */
+        ExploreTask(ExploreTask parent, State state, InternedInventory inventory) {
+            super(parent);
+            this.state = state;
+            this.inventory = inventory;
+        }
+
+        @Override
+        public void compute() {
+            expand(this, state, inventory);
+            tryComplete();
+        }
+    }
+
+    /**
+     * encoded state of a session: the current and the previous room packed into one long and the id of the interned
+     * inventory
+     */
+    private static final class State {
+        private final long rooms;
+        private final int inventory;
+
+        /**
+         * constructor for a state
+         * @param room the id of the current room
+         * @param prevRoom the id of the previous room or -1
+         * @param inventory the interned inventory
+         */
+        State(int room, int prevRoom, InternedInventory inventory) {
+            this.rooms = (long) room << 32 | (prevRoom & 0xFFFFFFFFL);
+            this.inventory = inventory.id;
+        }
+
+        /**
+         * getter for the id of the current room
+         * @return the room id
+         */
+        int room() {
+            return (int) (rooms >>> 32);
+        }
+
+        /**
+         * getter for the id of the previous room
+         * @return the room id or -1
+         */
+        int prevRoom() {
+            return (int) rooms;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof State state && rooms == state.rooms && inventory == state.inventory;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(rooms * 31 + inventory);
+        }
+    }
+
+    /**
+     * interned words of an inventory, equal by the words only
+     */
+    private static final class InternedInventory {
+        final long[] words;
+        final int id;
+        private final int hash;
+
+        /**
+         * constructor for an inventory
+         * @param words the words of the inventory, not copied
+         * @param id the id of the inventory
+         */
+        InternedInventory(long[] words, int id) {
+            this.words = words;
+            this.id = id;
+            this.hash = Arrays.hashCode(words);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof InternedInventory inventory && Arrays.equals(words, inventory.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+}
@@ -1,12 +1,101 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 public class TextAdventureA {
 
+    // chosen options after which a stored session writes a new snapshot
+    private static final int SNAPSHOT_INTERVAL = 20;
+    // time between two syncs of the journal of a stored session
+    private static final long JOURNAL_FLUSH_MILLIS = 50;
+
     /**
      * Creating and starting text adventure game
-     * @param args command line args - unused
+     * @param args command line args - "--world file" loads the rooms from a world file and can be followed by one of
+     *             "--server port [shared]" starts a GameServer on the given port, the world file is reloaded when it
+     *             changes, with "shared" all players share the items of the world and see each other,
+     *             "--replay files..." replays the given input scripts and prints the result of each script,
+     *             "--explore [maxStates]" executes every option in every reachable state and prints all failures,
+     *             "--analyze" prints the reachable rooms, obtainable items and dead ends of the world,
+     *             "--compile text binary" compiles a world in the text format into the binary format,
+     *             "--store directory" before the mode persists the game in a SessionStore in the directory and resumes
+     *             it when the game is started again, see SessionStore,
+     *             "--messages file" before the other arguments loads the messages of the game from a properties file,
+     *             see MessageTable
+     *             metrics are collected with -Dtextadventure.metrics=true and dumped to System.err every
+     *             -Dtextadventure.metrics.dump=seconds, see GameMetrics
+     * @throws Exception if the server can not be started or a file can not be read
      */
-    public static void main(String[] args) {
-        Game game = new Game();
-        game.start();
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3 && args[0].equals("--compile")) {
+            WorldCompiler.compile(Path.of(args[1]), Path.of(args[2]));
+            return;
+        }
+
+        GameMetrics.start();
+
+        MessageTable messages = MessageTable.GERMAN;
+        if (args.length >= 2 && args[0].equals("--messages")) {
+            messages = MessageTable.load(Path.of(args[1]));
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+
+        Game game;
+        Path worldFile = null;
+        if (args.length >= 2 && args[0].equals("--world")) {
+            worldFile = Path.of(args[1]);
+            game = new Game(worldFile);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        } else {
+            game = new Game();
+        }
+
+        Path storeDirectory = null;
+        if (args.length >= 2 && args[0].equals("--store")) {
+            storeDirectory = Path.of(args[1]);
+            args = Arrays.copyOfRange(args, 2, args.length);
+        }
+
+        if (args.length >= 2 && args[0].equals("--server")) {
+            try (WorldReloader reloader = new WorldReloader(game.getWorld())) {
+                if (worldFile != null) {
+                    Path file = worldFile;
+                    reloader.watch(file, () -> WorldCompiler.load(file, game.getActions()));
+                }
+                boolean shared = args.length >= 3 && args[2].equals("shared");
+                new GameServer(reloader::getCurrent, Integer.parseInt(args[1]), shared, messages).run();
+            }
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--explore")) {
+            long maxStates = args.length >= 2 ? Long.parseLong(args[1]) : 10_000_000;
+            System.out.print(new StateExplorer(game.getWorld(), maxStates).explore());
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--analyze")) {
+            System.out.print(game.getWorld().getAnalysis().report());
+            return;
+        }
+        if (args.length >= 1 && args[0].equals("--replay")) {
+            List<Path> files = new ArrayList<>();
+            for (int i = 1; i < args.length; i++)
+                files.add(Path.of(args[i]));
+
+            List<ReplayResult> results = new ReplayRunner(game.getWorld(), messages).runFiles(files);
+            for (int i = 0; i < results.size(); i++)
+                System.out.println(files.get(i) + ": " + results.get(i));
+            return;
+        }
+        game.setMessages(messages);
+        if (storeDirectory == null) {
+            game.start();
+            return;
+        }
+        try (SessionStore store = SessionStore.open(storeDirectory, game.getWorld(), SNAPSHOT_INTERVAL,
+                JOURNAL_FLUSH_MILLIS)) {
+            game.start(store);
+        }
     }
 
-}
\ No newline at end of file
+}
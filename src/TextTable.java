@@ -0,0 +1,48 @@
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * interned display texts of options together with their UTF-8 encoding, shared by all RoomBuilders of a world
+ * rooms with the same option text share one string and one encoded array instead of a copy per option
+ * the table is safe to use from many threads, the rooms of a BinaryWorld are built lazily by the sessions
+ */
+public final class TextTable {
+
+    private final ConcurrentHashMap<String, Text> texts = new ConcurrentHashMap<>();
+
+    /**
+     * returns the interned text equal to the given text, encodes it on the first request
+     * @param text the text
+     * @return the interned text, the same instance for all equal texts
+     */
+    Text intern(String text) {
+        Text result = texts.get(text);
+        return result != null ? result : texts.computeIfAbsent(text, Text::new);
+    }
+
+    /**
+     * getter for the number of different texts
+     * @return number of texts
+     */
+    public int size() {
+        return texts.size();
+    }
+
+    /**
+     * a display text with its encoding, immutable
+     */
+    static final class Text {
+        final String text;
+        final byte[] encoded;
+
+        /**
+         * constructor for a text, encodes the text to UTF-8
+         * @param text the text
+         */
+        Text(String text) {
+            this.text = text;
+            this.encoded = text.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * hierarchical timing wheel for events due after a number of ticks, a tick can be a turn of a session or a fixed time
+ * every level has 64 slots, a slot of level n covers 64^n ticks, an event is stored in the slot of the lowest level
+ * whose range contains its deadline and moves down one level every time the slot of its level is reached
+ * scheduling and cancelling take constant time independent of the number of pending events, advancing takes constant
+ * time per tick plus the time for the due events, ticks without events in the lower levels are skipped
+ * the wheel is thread safe, due events are run by the thread calling advance after the lock is released
+ */
+public class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOT_COUNT = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+    // 6 levels cover 2^36 ticks, events due later wait in the highest level until they are in range
+    private static final int LEVEL_COUNT = 6;
+
+    // first event of the list of every slot, the slots of level n start at n * SLOT_COUNT
+    private final ScheduledEvent[] slots = new ScheduledEvent[LEVEL_COUNT * SLOT_COUNT];
+    private final int[] levelSizes = new int[LEVEL_COUNT];
+    private long currentTick;
+    private int size = 0;
+
+    /**
+     * constructor for an empty wheel
+     * @param startTick the current tick
+     */
+    public TimingWheel(long startTick) {
+        this.currentTick = startTick;
+    }
+
+    /**
+     * schedules a task
+     * @param delay the number of ticks until the task is due, at least one tick
+     * @param task the work, must not block because it delays all other due events
+     * @return the event for cancelling the task
+     */
+    public synchronized ScheduledEvent schedule(long delay, Runnable task) {
+        ScheduledEvent event = new ScheduledEvent(this, currentTick + Math.max(delay, 1), task);
+        insert(event);
+        size++;
+        return event;
+    }
+
+    /**
+     * removes an event from its slot
+     * @param event the event
+     * @return false if the event already fired or was cancelled before
+     */
+    synchronized boolean cancel(ScheduledEvent event) {
+        if (event.slot < 0)
+            return false;
+
+        unlink(event);
+        size--;
+        return true;
+    }
+
+    /**
+     * moves the wheel forward and runs all events due until the given tick
+     * @param tick the new current tick, nothing happens if it is not after the current tick
+     */
+    public void advance(long tick) {
+        List<ScheduledEvent> due = null;
+        synchronized (this) {
+            while (currentTick < tick) {
+                // nothing happens before the next slot of the lowest level with events is reached
+                int lowest = 0;
+                while (lowest < LEVEL_COUNT && levelSizes[lowest] == 0)
+                    lowest++;
+                if (lowest == LEVEL_COUNT) {
+                    currentTick = tick;
+                    break;
+                }
+                if (lowest > 0) {
+                    long span = 1L << (lowest * SLOT_BITS);
+                    long boundary = (currentTick | (span - 1)) + 1;
+                    if (boundary > tick) {
+                        currentTick = tick;
+                        break;
+                    }
+                    currentTick = boundary - 1;
+                }
+
+                currentTick++;
+                cascade();
+
+                ScheduledEvent event = detach((int) (currentTick & SLOT_MASK));
+                while (event != null) {
+                    ScheduledEvent next = event.next;
+                    if (event.deadline <= currentTick) {
+                        event.slot = -1;
+                        event.prev = event.next = null;
+                        size--;
+                        if (due == null)
+                            due = new ArrayList<>();
+                        due.add(event);
+                    } else {
+                        insert(event);
+                    }
+                    event = next;
+                }
+            }
+        }
+
+        if (due != null) {
+            for (ScheduledEvent event : due)
+                event.task.run();
+        }
+    }
+
+    /**
+     * getter for the current tick
+     * @return the tick of the last advance
+     */
+    public synchronized long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * getter for the number of pending events
+     * @return number of events which are neither due nor cancelled
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * moves the events of the higher levels whose slot is reached by the current tick one or more levels down
+     */
+    private void cascade() {
+        for (int level = 1; level < LEVEL_COUNT; level++) {
+            if ((currentTick & ((1L << (level * SLOT_BITS)) - 1)) != 0)
+                return;
+
+            int slot = (int) ((currentTick >>> (level * SLOT_BITS)) & SLOT_MASK);
+            ScheduledEvent event = detach(level * SLOT_COUNT + slot);
+            while (event != null) {
+                ScheduledEvent next = event.next;
+                insert(event);
+                event = next;
+            }
+        }
+    }
+
+    /**
+     * adds an event to the slot of the lowest level whose range contains the deadline
+     * @param event the event
+     */
+    private void insert(ScheduledEvent event) {
+        long delta = event.deadline - currentTick;
+        int level = 0;
+        while (level < LEVEL_COUNT - 1 && delta >= 1L << ((level + 1) * SLOT_BITS))
+            level++;
+
+        int slot = level * SLOT_COUNT + (int) ((event.deadline >>> (level * SLOT_BITS)) & SLOT_MASK);
+        event.slot = slot;
+        levelSizes[level]++;
+        event.prev = null;
+        event.next = slots[slot];
+        if (event.next != null)
+            event.next.prev = event;
+        slots[slot] = event;
+    }
+
+    /**
+     * removes an event from the list of its slot
+     * @param event the event
+     */
+    private void unlink(ScheduledEvent event) {
+        if (event.prev != null)
+            event.prev.next = event.next;
+        else
+            slots[event.slot] = event.next;
+        if (event.next != null)
+            event.next.prev = event.prev;
+        levelSizes[event.slot >> SLOT_BITS]--;
+        event.slot = -1;
+        event.prev = event.next = null;
+    }
+
+    /**
+     * removes all events of a slot, the events keep their next links so the caller can walk through them and insert
+     * them again or run them
+     * @param slot the index of the slot
+     * @return the first event of the slot or null if the slot is empty
+     */
+    private ScheduledEvent detach(int slot) {
+        ScheduledEvent first = slots[slot];
+        slots[slot] = null;
+        for (ScheduledEvent event = first; event != null; event = event.next)
+            levelSizes[slot >> SLOT_BITS]--;
+        return first;
+    }
+
+}
@@ -0,0 +1,197 @@
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * the world of a game containing all rooms and items
+ * a world is not changed after it is created and can be shared by any number of GameSessions
+ * a new version of a world is published with replaceWith, sessions switch to the latest version at their next room
+ * change, see GameSession
+ */
+public class World {
+
+    // FNV-1a parameters of the fingerprint
+    static final long FINGERPRINT_BASIS = 0xcbf29ce484222325L;
+    private static final long FINGERPRINT_PRIME = 0x100000001b3L;
+
+    private final RoomSource rooms;
+    private final ItemTable items;
+    private final int maxOptionCount;
+    // computed on the first request, see getAnalysis
+    private volatile WorldAnalysis analysis = null;
+    // created on the first request, see getSharedState
+    private volatile SharedWorldState sharedState = null;
+    // computed on the first request, 0 if not computed yet, see getFingerprint
+    private volatile long fingerprint = 0;
+    // the latest version, shared by all versions of this world, so a replaced version only stays reachable while
+    // sessions play in it, set once by replaceWith before this world is published
+    private volatile AtomicReference<World> latest = new AtomicReference<>(this);
+
+    /**
+     * constructor for a world
+     * registers all rooms, checks that all rooms pointed to by options exist, collects all items and links the
+     * compiled conditions of the rooms to the items
+     * @param rooms all rooms of the world, the first room is the start room
+     * @throws IllegalStateException if an option points to a room which does not exist
+     */
+    public World(Room[] rooms) {
+        RoomRegistry registry = new RoomRegistry(rooms);
+        registry.validate();
+        this.rooms = registry;
+        this.items = new ItemTable(rooms);
+
+        int max = 0;
+        for (Room room : rooms) {
+            room.link(items);
+            max = Math.max(max, room.options.length);
+        }
+        this.maxOptionCount = max;
+    }
+
+    /**
+     * constructor for a world whose rooms are provided by a room source, for example a LazyRoomSource
+     * the rooms pointed to by options are not checked, the source has to make sure they exist
+     * @param rooms the source of all rooms
+     * @param items all items which can be picked up in the rooms
+     * @param maxOptionCount the maximum number of options of a single room
+     */
+    public World(RoomSource rooms, ItemTable items, int maxOptionCount) {
+        this.rooms = rooms;
+        this.items = items;
+        this.maxOptionCount = maxOptionCount;
+    }
+
+    /**
+     * getter for the source of all rooms
+     * @return the room source
+     */
+    public RoomSource getRooms() {
+        return rooms;
+    }
+
+    /**
+     * getter for the table of all items which can be picked up
+     * @return the item table
+     */
+    public ItemTable getItems() {
+        return items;
+    }
+
+    /**
+     * returns the room a new session starts in
+     * @return the start room
+     */
+    public Room getStartRoom() {
+        return rooms.getStartRoom();
+    }
+
+    /**
+     * getter for the maximum number of options of a single room, used for sizing the buffers of a session
+     * @return maximum number of options in a room
+     */
+    public int getMaxOptionCount() {
+        return maxOptionCount;
+    }
+
+    /**
+     * returns the analysis of the room graph of this world, it is computed by a WorldAnalyzer on the first request
+     * @return the analysis
+     */
+    public WorldAnalysis getAnalysis() {
+        WorldAnalysis result = analysis;
+        if (result == null) {
+            synchronized (this) {
+                result = analysis;
+                if (result == null)
+                    analysis = result = new WorldAnalyzer(this).analyze();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * returns the fingerprint of the room names and the item names in the order of their ids, computed on the first
+     * request
+     * snapshots of sessions store room ids and item bits, they can only be restored in a world with the same
+     * fingerprint, a world loaded from a text file and its compiled binary have the same fingerprint
+     * @return the fingerprint
+     */
+    public long getFingerprint() {
+        long result = fingerprint;
+        if (result == 0) {
+            result = fingerprint(rooms.fingerprint(), (byte) 0);
+            for (int i = 0; i < items.size(); i++) {
+                for (byte b : items.encodedNameOf(i))
+                    result = fingerprint(result, b);
+                result = fingerprint(result, (byte) 0);
+            }
+            fingerprint = result;
+        }
+        return result;
+    }
+
+    /**
+     * adds a byte to a fingerprint
+     * @param fingerprint the fingerprint of the bytes before
+     * @param b the byte
+     * @return the new fingerprint
+     */
+    static long fingerprint(long fingerprint, byte b) {
+        return (fingerprint ^ (b & 0xFF)) * FINGERPRINT_PRIME;
+    }
+
+    /**
+     * returns the state shared by all sessions playing together in this world, it is created on the first request
+     * @return the shared state
+     */
+    public SharedWorldState getSharedState() {
+        SharedWorldState result = sharedState;
+        if (result == null) {
+            synchronized (this) {
+                result = sharedState;
+                if (result == null)
+                    sharedState = result = new SharedWorldState(this);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * publishes a new version of this world, sessions in this world switch to it at their next room change
+     * the new world is fully created before it is published, so sessions never see a partially loaded world
+     * if players share this world, the items they took are taken in the new world too, see
+     * SharedWorldState.carryOverTo
+     * @param next the new version
+     * @throws IllegalStateException if this world is already replaced or the new world is this world or a version of
+     *                               another world
+     */
+    public synchronized void replaceWith(World next) {
+        AtomicReference<World> versions = latest;
+        synchronized (versions) {
+            if (versions.get() != this || next == this || next.latest.get() != next)
+                throw new IllegalStateException("Die Welt wurde bereits ersetzt!");
+            SharedWorldState state = sharedState;
+            if (state != null)
+                state.carryOverTo(next.getSharedState());
+            next.latest = versions;
+            versions.set(next);
+        }
+    }
+
+    /**
+     * returns the latest version of this world, reads one volatile field and takes no lock
+     * @return the world which replaced this world last or this world if it is not replaced
+     */
+    public World getLatest() {
+        return latest.get();
+    }
+
+    /**
+     * returns a supplier of the latest version of this world, for example for a GameServer starting new sessions
+     * the supplier does not hold this world, so replaced versions can be garbage collected
+     * @return the supplier
+     */
+    public Supplier<World> versions() {
+        return latest::get;
+    }
+
+}
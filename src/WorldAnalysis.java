@@ -0,0 +1,382 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * result of a WorldAnalyzer: reachable rooms, obtainable items, dead ends and shortest paths from the start room
+ * the room graph of the analysis is kept, so hints for a session are computed without requesting rooms from the room
+ * source of the world
+ * an analysis is not changed after it is created and can be shared by all sessions of the world
+ */
+public class WorldAnalysis {
+
+    // number of rooms and items listed per category in the report
+    private static final int REPORT_LIMIT = 20;
+
+    private final World world;
+    private final String[] names;
+    private final int[][] targets;
+    private final int[][] targetOptions;
+    private final OptionCondition[][] targetConditions;
+    private final int[][] pickItems;
+    private final OptionCondition[][] pickConditions;
+
+    private final int[] distance;
+    private final int[] parent;
+    private final int[] roomRound;
+    private final int[] itemRound;
+    private final int[] itemRoom;
+    private final boolean[] deadEnds;
+    private final String[] unknownItems;
+    private final int opaqueConditions;
+    private final int rounds;
+
+    /**
+     * constructor for the result of an analysis, called by the WorldAnalyzer
+     * @param world the analyzed world
+     * @param names the names of all rooms by id
+     * @param targets per room the ids of the rooms of all CHANGE_ROOM options, -1 for missing rooms
+     * @param targetOptions per room the index of the option of every target
+     * @param targetConditions per room the condition of the option of every target
+     * @param pickItems per room the item ids of all PICK_ITEM options, -1 for unknown items
+     * @param pickConditions per room the condition of the option of every item
+     * @param distance per room the length of the shortest path from the start room, -1 if it is not reachable
+     * @param parent per room the previous room on the shortest path, -1 for the start room
+     * @param roomRound per room the round it was reached in, -1 if it is not reachable
+     * @param itemRound per item the round it was found in, -1 if it can not be picked up
+     * @param itemRoom per item the nearest room it can be picked up in, -1 if it can not be picked up
+     * @param deadEnds per room true if it is reachable but can not be left
+     * @param unknownItems items used in conditions which can not be picked up anywhere
+     * @param opaqueConditions number of conditions which are not created by Conditions and were not analyzed
+     * @param rounds number of search rounds
+     */
+    WorldAnalysis(World world, String[] names, int[][] targets, int[][] targetOptions,
+                  OptionCondition[][] targetConditions, int[][] pickItems, OptionCondition[][] pickConditions,
+                  int[] distance, int[] parent, int[] roomRound, int[] itemRound, int[] itemRoom, boolean[] deadEnds,
+                  String[] unknownItems, int opaqueConditions, int rounds) {
+        this.world = world;
+        this.names = names;
+        this.targets = targets;
+        this.targetOptions = targetOptions;
+        this.targetConditions = targetConditions;
+        this.pickItems = pickItems;
+        this.pickConditions = pickConditions;
+        this.distance = distance;
+        this.parent = parent;
+        this.roomRound = roomRound;
+        this.itemRound = itemRound;
+        this.itemRoom = itemRoom;
+        this.deadEnds = deadEnds;
+        this.unknownItems = unknownItems;
+        this.opaqueConditions = opaqueConditions;
+        this.rounds = rounds;
+        Arrays.sort(this.unknownItems);
+    }
+
+    /**
+     * checks if a room can be reached from the start room
+     * @param roomName the name of the room
+     * @return true if the room is reachable, false if it is not reachable or does not exist
+     */
+    public boolean isReachable(String roomName) {
+        int id = world.getRooms().idOf(roomName);
+        return id >= 0 && distance[id] >= 0;
+    }
+
+    /**
+     * checks if an item can be picked up
+     * @param itemName the name of the item
+     * @return true if the item can be picked up in a reachable room
+     */
+    public boolean isObtainable(String itemName) {
+        int id = world.getItems().idOf(itemName);
+        return id >= 0 && itemRound[id] >= 0;
+    }
+
+    /**
+     * returns the names of all rooms which can not be reached from the start room
+     * @return the names of the unreachable rooms ordered by id
+     */
+    public List<String> getUnreachableRooms() {
+        List<String> result = new ArrayList<>();
+        for (int room = 0; room < names.length; room++) {
+            if (distance[room] < 0)
+                result.add(names[room]);
+        }
+        return result;
+    }
+
+    /**
+     * returns the names of all items which can never be picked up, including items only used in conditions
+     * @return the names of the items
+     */
+    public List<String> getUnobtainableItems() {
+        List<String> result = new ArrayList<>();
+        ItemTable items = world.getItems();
+        for (int item = 0; item < itemRound.length; item++) {
+            if (itemRound[item] < 0)
+                result.add(items.nameOf(item));
+        }
+        Collections.addAll(result, unknownItems);
+        return result;
+    }
+
+    /**
+     * returns the names of all reachable rooms which have no option to another room, no back option and no quit
+     * option
+     * @return the names of the dead ends ordered by id
+     */
+    public List<String> getDeadEnds() {
+        List<String> result = new ArrayList<>();
+        for (int room = 0; room < names.length; room++) {
+            if (deadEnds[room])
+                result.add(names[room]);
+        }
+        return result;
+    }
+
+    /**
+     * returns the shortest path from the start room to a room if all obtainable items are picked up
+     * @param roomName the name of the room
+     * @return the names of all rooms on the path starting with the start room, empty if the room is not reachable
+     */
+    public List<String> getPath(String roomName) {
+        int id = world.getRooms().idOf(roomName);
+        if (id < 0 || distance[id] < 0)
+            return List.of();
+
+        String[] path = new String[distance[id] + 1];
+        for (int room = id, i = path.length - 1; room >= 0; room = parent[room], i--)
+            path[i] = names[room];
+        return Arrays.asList(path);
+    }
+
+    /**
+     * returns all items which have to be picked up before the shortest path to a room can be walked
+     * the items needed on the way to these items are included, items needed first are listed first
+     * @param roomName the name of the room
+     * @return the names of the items, empty if the room is not reachable or no item is needed
+     */
+    public List<String> getRequiredItems(String roomName) {
+        int id = world.getRooms().idOf(roomName);
+        if (id < 0 || distance[id] < 0)
+            return List.of();
+
+        Set<Integer> required = new LinkedHashSet<>();
+        collectRequiredItems(id, required, new HashSet<>());
+        List<String> result = new ArrayList<>();
+        for (int item : required)
+            result.add(world.getItems().nameOf(item));
+        return result;
+    }
+
+    /**
+     * getter for the length of the shortest path from the start room
+     * @param roomName the name of the room
+     * @return the number of room changes or -1 if the room is not reachable
+     */
+    public int getDistance(String roomName) {
+        int id = world.getRooms().idOf(roomName);
+        return id < 0 ? -1 : distance[id];
+    }
+
+    /**
+     * computes a hint for a session: the next option leading to the nearest room with an item the player does not
+     * have yet, using the conditions of the options with the current inventory of the player
+     * besides the options of the graph the back option of the current room is used
+     * @param session the session asking for the hint
+     * @return the hint as text in the language of the MessageTable of the session
+     */
+    public String hint(GameSession session) {
+        InventoryView inventory = session.getInventory();
+        Room current = session.getCurrentRoom();
+        int start = current.id;
+        MessageTable messages = session.getOutput().getMessages();
+
+        String here = findItem(start, inventory, current);
+        if (here != null)
+            return messages.format(Message.HINT_ITEM_HERE, here);
+
+        int[] firstStep = new int[names.length];
+        Arrays.fill(firstStep, -1);
+        firstStep[start] = Integer.MAX_VALUE;
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+        // the back option is not part of the graph, but it is the only way out of some rooms
+        Room prevRoom = session.GetPrevRoom();
+        for (int i = 0; i < current.options.length && prevRoom != null; i++) {
+            Option option = current.options[i];
+            if (option.getOptionAction() != Action.CHANGE_ROOM || !option.getOptionData().equals("PREV")
+                    || !option.getOptionCondition().checkCondition(inventory, prevRoom))
+                continue;
+
+            firstStep[prevRoom.id] = i;
+            String item = findItem(prevRoom.id, inventory, current);
+            if (item != null)
+                return messages.format(Message.HINT_NEXT_OPTION, option.getOptionText(messages), prevRoom.name, item);
+            queue.add(prevRoom.id);
+            break;
+        }
+        queue.add(start);
+
+        while (!queue.isEmpty()) {
+            int room = queue.poll();
+            for (int t = 0; t < targets[room].length; t++) {
+                int target = targets[room][t];
+                if (target < 0 || firstStep[target] >= 0
+                        || !targetConditions[room][t].checkCondition(inventory, current))
+                    continue;
+
+                firstStep[target] = room == start ? targetOptions[start][t] : firstStep[room];
+                String item = findItem(target, inventory, current);
+                if (item != null)
+                    return messages.format(Message.HINT_NEXT_OPTION,
+                            current.options[firstStep[target]].getOptionText(messages), names[target], item);
+                queue.add(target);
+            }
+        }
+        return messages.format(Message.HINT_NO_ITEMS);
+    }
+
+    /**
+     * formats the results of the analysis
+     * @return the report as text
+     */
+    public String report() {
+        int reachable = 0;
+        int maxDistance = 0;
+        int farthest = -1;
+        for (int room = 0; room < names.length; room++) {
+            if (distance[room] < 0)
+                continue;
+            reachable++;
+            if (distance[room] >= maxDistance) {
+                maxDistance = distance[room];
+                farthest = room;
+            }
+        }
+        int obtainable = 0;
+        for (int round : itemRound) {
+            if (round >= 0)
+                obtainable++;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append("Räume: ").append(reachable).append(" von ").append(names.length).append(" erreichbar\n");
+        builder.append("Items: ").append(obtainable).append(" von ").append(itemRound.length)
+                .append(" erhältlich, ").append(rounds).append(" Suchrunden\n");
+        if (farthest >= 0)
+            builder.append("Weitester Raum: ").append(names[farthest]).append(" nach ").append(maxDistance)
+                    .append(" Raumwechseln\n");
+        appendList(builder, "Nicht erreichbare Räume", getUnreachableRooms());
+        appendList(builder, "Nie erhältliche Items", getUnobtainableItems());
+        appendList(builder, "Sackgassen", getDeadEnds());
+        if (opaqueConditions > 0)
+            builder.append("Nicht analysierte Bedingungen: ").append(opaqueConditions).append('\n');
+
+        // rooms which need items are the interesting solution paths
+        int paths = 0;
+        for (int room = 0; room < names.length && paths < REPORT_LIMIT; room++) {
+            if (roomRound[room] > 0) {
+                paths++;
+                builder.append("Weg zu ").append(names[room]).append(": ")
+                        .append(String.join(" -> ", getPath(names[room])))
+                        .append(", benötigt ").append(String.join(", ", getRequiredItems(names[room])))
+                        .append('\n');
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * returns an item which the player can pick up in a room and does not have yet
+     * @param room the id of the room
+     * @param inventory the inventory of the player
+     * @param current the current room of the player, used as previous room for the conditions
+     * @return the name of the item or null if there is none
+     */
+    private String findItem(int room, InventoryView inventory, Room current) {
+        for (int i = 0; i < pickItems[room].length; i++) {
+            int item = pickItems[room][i];
+            if (item >= 0 && !inventory.hasItem(item) && pickConditions[room][i].checkCondition(inventory, current))
+                return world.getItems().nameOf(item);
+        }
+        return null;
+    }
+
+    /**
+     * collects the items needed on the shortest path to a room and recursively the items needed to reach them
+     * @param room the id of the room
+     * @param required the collected item ids, items needed first are added first
+     * @param seen all item ids already handled, so items needing each other do not recurse endlessly
+     */
+    private void collectRequiredItems(int room, Set<Integer> required, Set<Integer> seen) {
+        for (int current = room; parent[current] >= 0; current = parent[current]) {
+            int from = parent[current];
+            for (int t = 0; t < targets[from].length; t++) {
+                if (targets[from][t] != current)
+                    continue;
+                for (int item : itemsOf(targetConditions[from][t])) {
+                    if (itemRoom[item] >= 0 && seen.add(item)) {
+                        collectRequiredItems(itemRoom[item], required, seen);
+                        required.add(item);
+                    }
+                }
+                break;
+            }
+        }
+    }
+
+    /**
+     * returns the items a condition requires to be picked up, only conditions created by Conditions are known
+     * @param condition the condition of an option
+     * @return the item ids of all "has item" parts which are not negated
+     */
+    private List<Integer> itemsOf(OptionCondition condition) {
+        List<Integer> result = new ArrayList<>();
+        if (condition instanceof CompiledCondition compiled)
+            collectItems(compiled.getSource(), true, result);
+        else if (condition instanceof Condition source)
+            collectItems(source, true, result);
+        return result;
+    }
+
+    /**
+     * collects the item ids of all "has item" parts of a condition which are not negated
+     * @param condition the condition
+     * @param positive false if the condition is negated
+     * @param result the collected item ids
+     */
+    private void collectItems(Condition condition, boolean positive, List<Integer> result) {
+        if (condition.getKind() == Condition.Kind.HAS_ITEM && positive) {
+            int item = world.getItems().idOf(condition.getItem());
+            if (item >= 0 && itemRound[item] >= 0)
+                result.add(item);
+        }
+        for (int i = 0; i < condition.getOperandCount(); i++)
+            collectItems(condition.getOperand(i), positive != (condition.getKind() == Condition.Kind.NOT), result);
+    }
+
+    /**
+     * appends a line with the first entries of a list if it is not empty
+     * @param builder the builder to append to
+     * @param title the title of the line
+     * @param entries the entries
+     */
+    private static void appendList(StringBuilder builder, String title, List<String> entries) {
+        if (entries.isEmpty())
+            return;
+
+        builder.append(title).append(" (").append(entries.size()).append("): ")
+                .append(String.join(", ", entries.subList(0, Math.min(REPORT_LIMIT, entries.size()))));
+        if (entries.size() > REPORT_LIMIT)
+            builder.append(", ...");
+        builder.append('\n');
+    }
+
+}
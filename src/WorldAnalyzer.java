@@ -0,0 +1,375 @@
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * analyzes the room graph of a world: which rooms can be reached from the start room, which items can be picked up,
+ * which rooms are dead ends and the shortest paths to all rooms
+ *
+ * items are never dropped, so the analysis runs in rounds: every round searches all rooms reachable with the items
+ * found so far and collects the items which can be picked up in these rooms, until no new item is found
+ * conditions are evaluated optimistically: "has item" is fulfilled if the item can be picked up in an earlier round,
+ * "not item" and "prev" are always possible, conditions which are not created by Conditions are assumed to be
+ * fulfilled
+ * options going back to the previous room are not edges of the graph, they only lead to rooms already reached
+ *
+ * the graph is built and searched level by level with fork-join tasks, so large worlds are analyzed on all cores
+ */
+public class WorldAnalyzer {
+
+    // number of rooms or frontier entries handled by one task without splitting
+    private static final int TASK_SIZE = 512;
+
+    private final World world;
+    private final RoomSource rooms;
+    private final ItemTable items;
+    private final int roomCount;
+    private final ForkJoinPool pool;
+
+    // the graph, per room the target rooms of all CHANGE_ROOM options and the items of all PICK_ITEM options
+    private final String[] names;
+    private final int[][] targets;
+    private final int[][] targetOptions;
+    private final OptionCondition[][] targetConditions;
+    private final int[][] pickItems;
+    private final OptionCondition[][] pickConditions;
+    private final boolean[] exits;
+    private final Set<String> unknownItems = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger opaqueConditions = new AtomicInteger();
+
+    // the current search, distance is -1 for rooms which are not reached yet
+    private final AtomicIntegerArray distance;
+    private final AtomicIntegerArray parent;
+    private boolean[] obtainable;
+
+    /**
+     * constructor for an analyzer of a world
+     * @param world the world to analyze
+     */
+    public WorldAnalyzer(World world) {
+        this.world = world;
+        this.rooms = world.getRooms();
+        this.items = world.getItems();
+        this.roomCount = rooms.size();
+        this.pool = ForkJoinPool.commonPool();
+
+        this.names = new String[roomCount];
+        this.targets = new int[roomCount][];
+        this.targetOptions = new int[roomCount][];
+        this.targetConditions = new OptionCondition[roomCount][];
+        this.pickItems = new int[roomCount][];
+        this.pickConditions = new OptionCondition[roomCount][];
+        this.exits = new boolean[roomCount];
+        this.distance = new AtomicIntegerArray(roomCount);
+        this.parent = new AtomicIntegerArray(roomCount);
+    }
+
+    /**
+     * analyzes the world, every room is requested once from the room source of the world
+     * @return the result of the analysis
+     */
+    public WorldAnalysis analyze() {
+        pool.invoke(new BuildTask(0, roomCount));
+
+        obtainable = new boolean[items.size()];
+        int[] roomRound = new int[roomCount];
+        int[] itemRound = new int[items.size()];
+        int[] itemRoom = new int[items.size()];
+        Arrays.fill(roomRound, -1);
+        Arrays.fill(itemRound, -1);
+        Arrays.fill(itemRoom, -1);
+
+        int start = world.getStartRoom().id;
+        int round = 0;
+        while (true) {
+            search(start);
+
+            for (int room = 0; room < roomCount; room++) {
+                if (roomRound[room] < 0 && distance.get(room) >= 0)
+                    roomRound[room] = round;
+            }
+
+            boolean found = false;
+            for (int room = 0; room < roomCount; room++) {
+                if (distance.get(room) < 0)
+                    continue;
+                for (int i = 0; i < pickItems[room].length; i++) {
+                    int item = pickItems[room][i];
+                    if (item < 0 || obtainable[item] || !isPossible(pickConditions[room][i]))
+                        continue;
+                    if (itemRound[item] < 0 || distance.get(room) < distance.get(itemRoom[item])) {
+                        itemRound[item] = round;
+                        itemRoom[item] = room;
+                        found = true;
+                    }
+                }
+            }
+            if (!found)
+                break;
+
+            for (int item = 0; item < itemRound.length; item++)
+                obtainable[item] |= itemRound[item] >= 0;
+            round++;
+        }
+
+        int[] finalDistance = new int[roomCount];
+        int[] finalParent = new int[roomCount];
+        boolean[] deadEnds = new boolean[roomCount];
+        for (int room = 0; room < roomCount; room++) {
+            finalDistance[room] = distance.get(room);
+            finalParent[room] = parent.get(room);
+            deadEnds[room] = finalDistance[room] >= 0 && !exits[room] && !hasPossibleExit(room);
+        }
+
+        return new WorldAnalysis(world, names, targets, targetOptions, targetConditions, pickItems, pickConditions,
+                finalDistance, finalParent, roomRound, itemRound, itemRoom, deadEnds,
+                unknownItems.toArray(new String[0]), opaqueConditions.get(), round + 1);
+    }
+
+    /**
+     * searches all rooms reachable from the start room with the currently obtainable items, level by level
+     * the parent of a room is the room with the smallest id on the previous level, so the result does not depend on
+     * the scheduling of the tasks
+     * @param start the id of the start room
+     */
+    private void search(int start) {
+        for (int room = 0; room < roomCount; room++) {
+            distance.set(room, -1);
+            parent.set(room, Integer.MAX_VALUE);
+        }
+        distance.set(start, 0);
+        parent.set(start, -1);
+
+        int[] frontier = {start};
+        int frontierSize = 1;
+        int[] next = new int[roomCount];
+        AtomicInteger nextSize = new AtomicInteger();
+        for (int level = 1; frontierSize > 0; level++) {
+            nextSize.set(0);
+            pool.invoke(new ExpandTask(frontier, 0, frontierSize, level, next, nextSize));
+
+            int[] swap = frontier.length == roomCount ? frontier : new int[roomCount];
+            frontier = next;
+            frontierSize = nextSize.get();
+            next = swap;
+        }
+    }
+
+    /**
+     * checks if a reached room has an option to another room which is possible with the obtainable items
+     * @param room the id of the room
+     * @return true if the player can leave the room
+     */
+    private boolean hasPossibleExit(int room) {
+        for (int i = 0; i < targets[room].length; i++) {
+            if (targets[room][i] != room && isPossible(targetConditions[room][i]))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * checks if a condition can be fulfilled with the obtainable items
+     * @param condition the condition of an option
+     * @return false if the condition can never be fulfilled
+     */
+    private boolean isPossible(OptionCondition condition) {
+        if (condition instanceof CompiledCondition compiled)
+            return isPossible(compiled.getSource(), true);
+        if (condition instanceof Condition source)
+            return isPossible(source, true);
+        return true;
+    }
+
+    /**
+     * checks if a condition or its negation can be fulfilled with the obtainable items
+     * @param condition the condition
+     * @param positive false if the negation of the condition is checked
+     * @return false if the condition can never be fulfilled
+     */
+    private boolean isPossible(Condition condition, boolean positive) {
+        switch (condition.getKind()) {
+            case HAS_ITEM: {
+                if (!positive)
+                    return true;
+                int item = items.idOf(condition.getItem());
+                return item >= 0 && obtainable[item];
+            }
+            case NOT:
+                return isPossible(condition.getOperand(0), !positive);
+            case AND:
+            case OR: {
+                // a negated and is an or of the negated operands and the other way round
+                boolean all = (condition.getKind() == Condition.Kind.AND) == positive;
+                for (int i = 0; i < condition.getOperandCount(); i++) {
+                    if (isPossible(condition.getOperand(i), positive) != all)
+                        return !all;
+                }
+                return all;
+            }
+            case TRUE:
+                return positive;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * collects the item names of a condition which are not in the item table of the world
+     * @param condition the condition of an option
+     */
+    private void collectUnknownItems(OptionCondition condition) {
+        if (condition instanceof CompiledCondition compiled)
+            collectUnknownItems(compiled.getSource());
+        else if (condition instanceof Condition source)
+            collectUnknownItems(source);
+        else
+            opaqueConditions.incrementAndGet();
+    }
+
+    /**
+     * collects the item names of a condition which are not in the item table of the world
+     * @param condition the condition
+     */
+    private void collectUnknownItems(Condition condition) {
+        if (condition.getKind() == Condition.Kind.HAS_ITEM && items.idOf(condition.getItem()) < 0)
+            unknownItems.add(condition.getItem());
+        for (int i = 0; i < condition.getOperandCount(); i++)
+            collectUnknownItems(condition.getOperand(i));
+    }
+
+    /**
+     * reads the options of a range of rooms into the graph arrays
+     */
+    @SuppressWarnings("serial")
+    private final class BuildTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        /**
+         * constructor for a task reading the rooms from until to - 1
+         * @param from the first room id
+         * @param to the room id after the last room
+         */
+        BuildTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new BuildTask(from, middle), new BuildTask(middle, to));
+                return;
+            }
+            for (int id = from; id < to; id++)
+                build(id);
+        }
+
+        /**
+         * reads the options of a single room
+         * @param id the id of the room
+         */
+        private void build(int id) {
+            Room room = rooms.get(id);
+            names[id] = room.name;
+
+            int targetCount = 0;
+            int pickCount = 0;
+            for (Option option : room.options) {
+                if (option.getOptionAction() == Action.CHANGE_ROOM && !option.getOptionData().equals("PREV"))
+                    targetCount++;
+                else if (option.getOptionAction() == Action.PICK_ITEM)
+                    pickCount++;
+            }
+
+            targets[id] = new int[targetCount];
+            targetOptions[id] = new int[targetCount];
+            targetConditions[id] = new OptionCondition[targetCount];
+            pickItems[id] = new int[pickCount];
+            pickConditions[id] = new OptionCondition[pickCount];
+
+            int t = 0;
+            int p = 0;
+            for (int i = 0; i < room.options.length; i++) {
+                Option option = room.options[i];
+                OptionCondition condition = option.getOptionCondition();
+                collectUnknownItems(condition);
+
+                if (option.getOptionAction() == Action.PICK_ITEM) {
+                    pickItems[id][p] = items.idOf(option.getOptionData());
+                    pickConditions[id][p++] = condition;
+                } else if (option.getOptionAction() == Action.CUSTOM) {
+                    exits[id] |= option.getOptionData().equals("QUIT");
+                } else if (option.getOptionData().equals("PREV")) {
+                    exits[id] = true;
+                } else {
+                    targets[id][t] = rooms.idOf(option.getOptionData());
+                    targetOptions[id][t] = i;
+                    targetConditions[id][t++] = condition;
+                }
+            }
+        }
+    }
+
+    /**
+     * expands a range of the frontier of the search by one level
+     */
+    @SuppressWarnings("serial")
+    private final class ExpandTask extends RecursiveAction {
+        private final int[] frontier;
+        private final int from;
+        private final int to;
+        private final int level;
+        private final int[] next;
+        private final AtomicInteger nextSize;
+
+        /**
+         * constructor for a task expanding the frontier entries from until to - 1
+         * @param frontier the rooms of the current level
+         * @param from the first index in the frontier
+         * @param to the index after the last index in the frontier
+         * @param level the distance of the rooms found by this task
+         * @param next the rooms of the next level
+         * @param nextSize the number of rooms in next
+         */
+        ExpandTask(int[] frontier, int from, int to, int level, int[] next, AtomicInteger nextSize) {
+            this.frontier = frontier;
+            this.from = from;
+            this.to = to;
+            this.level = level;
+            this.next = next;
+            this.nextSize = nextSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ExpandTask(frontier, from, middle, level, next, nextSize),
+                        new ExpandTask(frontier, middle, to, level, next, nextSize));
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                int room = frontier[i];
+                for (int t = 0; t < targets[room].length; t++) {
+                    int target = targets[room][t];
+                    if (target < 0 || !isPossible(targetConditions[room][t]))
+                        continue;
+
+                    if (distance.get(target) < 0 && distance.compareAndSet(target, -1, level))
+                        next[nextSize.getAndIncrement()] = target;
+                    if (distance.get(target) == level)
+                        parent.accumulateAndGet(target, room, Math::min);
+                }
+            }
+        }
+    }
+
+}
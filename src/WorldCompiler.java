@@ -0,0 +1,304 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * compiles worlds written in the text format into the binary format read by BinaryWorld
+ *
+ * text format (one entry per line, empty lines and lines starting with # are ignored):
+ *  room name [back] [hint] [quit]
+ *      starts a new room, "back" adds the option to go back to the previous room, "hint" adds the hint option and
+ *      "quit" adds the quit option
+ *  option ACTION | data | text [| condition]
+ *      adds an option to the last room, ACTION is a value of the Action enum, data the room, item or custom action
+ *      and condition a condition of the condition language, see Conditions
+ */
+public class WorldCompiler {
+
+    private static final String PREV_ROOM_KEYWORD = "PREV";
+    // number of decoded rooms kept in memory when loading a compiled world
+    private static final int LAZY_ROOM_CACHE_CAPACITY = 65_536;
+
+    private final ArrayList<String> strings = new ArrayList<>();
+    private final HashMap<String, Integer> stringIds = new HashMap<>();
+
+    private final ArrayList<int[]> rooms = new ArrayList<>();
+    private final HashMap<String, Integer> roomIds = new HashMap<>();
+    private final ArrayList<int[]> options = new ArrayList<>();
+    // line numbers of the options for error messages when resolving the target rooms
+    private final ArrayList<Integer> optionLines = new ArrayList<>();
+    // string indices of the items in the order they first appear
+    private final ArrayList<Integer> items = new ArrayList<>();
+    private final HashSet<Integer> itemIds = new HashSet<>();
+
+    /**
+     * compiles a world file in the text format into a file in the binary format
+     * @param textFile the path of the world in the text format
+     * @param binaryFile the path to write the compiled world to
+     * @throws IOException if a file can not be read or written
+     */
+    public static void compile(Path textFile, Path binaryFile) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(textFile, StandardCharsets.UTF_8)) {
+            ByteBuffer compiled = new WorldCompiler().compile(reader);
+            Files.write(binaryFile, compiled.array());
+        }
+    }
+
+    /**
+     * loads a world file in the text or the binary format
+     * rooms of a compiled world are decoded on first visit, rooms of a text world are built when it is loaded
+     * @param file the path of the world file
+     * @param handler the ActionHandler for custom actions of all rooms
+     * @return the loaded world
+     * @throws IOException if the file can not be read
+     */
+    public static World load(Path file, ActionHandler handler) throws IOException {
+        byte[] header = new byte[Integer.BYTES];
+        try (InputStream input = Files.newInputStream(file)) {
+            if (input.readNBytes(header, 0, header.length) == header.length && BinaryWorld.isBinaryWorld(header))
+                return BinaryWorld.open(file).toLazyWorld(handler, LAZY_ROOM_CACHE_CAPACITY);
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return new BinaryWorld(new WorldCompiler().compile(reader)).toWorld(handler);
+        }
+    }
+
+    /**
+     * loads a world written in the text format from a string
+     * @param text the world in the text format
+     * @param handler the ActionHandler for custom actions of all rooms
+     * @return the loaded world
+     */
+    public static World loadText(String text, ActionHandler handler) {
+        try {
+            return new BinaryWorld(new WorldCompiler().compile(new StringReader(text))).toWorld(handler);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * compiles a world in the text format
+     * @param input the world in the text format
+     * @return the compiled world in a heap buffer
+     * @throws IOException if the input can not be read
+     * @throws IllegalArgumentException if the world contains errors
+     */
+    public ByteBuffer compile(Reader input) throws IOException {
+        BufferedReader reader = new BufferedReader(input);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#"))
+                continue;
+
+            if (trimmed.startsWith("room "))
+                parseRoom(trimmed.substring(5).trim(), lineNumber);
+            else if (trimmed.startsWith("option "))
+                parseOption(trimmed.substring(7).trim(), lineNumber);
+            else
+                throw error(lineNumber, "Unbekannter Eintrag \"" + trimmed + "\"");
+        }
+
+        if (rooms.isEmpty())
+            throw new IllegalArgumentException("Die Welt enthält keinen Raum!");
+
+        resolveTargets();
+        return write();
+    }
+
+    /**
+     * parses a room entry
+     * @param entry the entry without the keyword
+     * @param lineNumber the line number for error messages
+     */
+    private void parseRoom(String entry, int lineNumber) {
+        String[] parts = entry.split("\\s+");
+        String name = parts[0];
+        int flags = 0;
+        for (int i = 1; i < parts.length; i++) {
+            if (parts[i].equals("back"))
+                flags |= BinaryWorld.FLAG_BACK;
+            else if (parts[i].equals("quit"))
+                flags |= BinaryWorld.FLAG_QUIT;
+            else if (parts[i].equals("hint"))
+                flags |= BinaryWorld.FLAG_HINT;
+            else
+                throw error(lineNumber, "Unbekannte Raumeinstellung \"" + parts[i] + "\"");
+        }
+
+        if (roomIds.putIfAbsent(name, rooms.size()) != null)
+            throw error(lineNumber, "Raum mit dem Namen " + name + " existiert mehrfach");
+
+        rooms.add(new int[] {intern(name), flags, options.size(), 0});
+    }
+
+    /**
+     * parses an option entry and adds it to the last room
+     * @param entry the entry without the keyword
+     * @param lineNumber the line number for error messages
+     */
+    private void parseOption(String entry, int lineNumber) {
+        if (rooms.isEmpty())
+            throw error(lineNumber, "Option außerhalb eines Raums");
+
+        String[] parts = entry.split("\\|", -1);
+        if (parts.length < 3 || parts.length > 4)
+            throw error(lineNumber, "Option braucht Aktion, Daten, Text und optional eine Bedingung");
+
+        Action action;
+        try {
+            action = Action.valueOf(parts[0].trim());
+        } catch (IllegalArgumentException e) {
+            throw error(lineNumber, "Unbekannte Aktion \"" + parts[0].trim() + "\"");
+        }
+
+        int condition = -1;
+        if (parts.length == 4 && !parts[3].isBlank()) {
+            try {
+                Conditions.parse(parts[3]);
+            } catch (IllegalArgumentException e) {
+                throw error(lineNumber, e.getMessage());
+            }
+            condition = intern(parts[3].trim());
+        }
+
+        int data = intern(parts[1].trim());
+        if (action == Action.PICK_ITEM && itemIds.add(data))
+            items.add(data);
+
+        options.add(new int[] {action.ordinal(), intern(parts[2].trim()), data, -1, condition});
+        optionLines.add(lineNumber);
+        rooms.get(rooms.size() - 1)[3]++;
+    }
+
+    /**
+     * resolves the data of all options with Action.CHANGE_ROOM to the index of the target room
+     */
+    private void resolveTargets() {
+        for (int i = 0; i < options.size(); i++) {
+            int[] option = options.get(i);
+            if (option[0] != Action.CHANGE_ROOM.ordinal())
+                continue;
+
+            String target = strings.get(option[2]);
+            if (target.equals(PREV_ROOM_KEYWORD))
+                continue;
+
+            Integer room = roomIds.get(target);
+            if (room == null)
+                throw error(optionLines.get(i), "Raum mit dem Namen " + target + " nicht gefunden");
+            option[3] = room;
+        }
+    }
+
+    /**
+     * writes all tables into a buffer
+     * @return the compiled world
+     */
+    private ByteBuffer write() {
+        byte[][] encoded = new byte[strings.size()][];
+        int stringDataLength = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            stringDataLength += encoded[i].length;
+        }
+
+        // the back, hint and quit options are added to the options of the room by the RoomBuilder
+        int maxOptionCount = 0;
+        for (int[] room : rooms)
+            maxOptionCount = Math.max(maxOptionCount, room[3] + Integer.bitCount(room[1]));
+
+        int hashSlots = Integer.highestOneBit(Math.max(1, rooms.size()) * 2) * 2;
+        int size = BinaryWorld.HEADER_SIZE
+                + (strings.size() + 1) * Integer.BYTES
+                + rooms.size() * BinaryWorld.ROOM_RECORD_SIZE
+                + options.size() * BinaryWorld.OPTION_RECORD_SIZE
+                + hashSlots * Integer.BYTES
+                + items.size() * Integer.BYTES
+                + stringDataLength;
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(BinaryWorld.MAGIC)
+                .putInt(BinaryWorld.VERSION)
+                .putInt(strings.size())
+                .putInt(rooms.size())
+                .putInt(options.size())
+                .putInt(hashSlots)
+                .putInt(stringDataLength)
+                .putInt(maxOptionCount)
+                .putInt(items.size());
+
+        int offset = 0;
+        for (byte[] string : encoded) {
+            buffer.putInt(offset);
+            offset += string.length;
+        }
+        buffer.putInt(offset);
+
+        for (int[] room : rooms)
+            for (int value : room)
+                buffer.putInt(value);
+
+        for (int[] option : options)
+            for (int value : option)
+                buffer.putInt(value);
+
+        int[] hashTable = new int[hashSlots];
+        for (int i = 0; i < rooms.size(); i++) {
+            int slot = BinaryWorld.hashSlot(strings.get(rooms.get(i)[0]), hashSlots);
+            while (hashTable[slot] != 0)
+                slot = (slot + 1) & (hashSlots - 1);
+            hashTable[slot] = i + 1;
+        }
+        for (int entry : hashTable)
+            buffer.putInt(entry);
+
+        for (int item : items)
+            buffer.putInt(item);
+
+        for (byte[] string : encoded)
+            buffer.put(string);
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * returns the index of a string in the string table and adds it if it is not in the table yet
+     * @param string the string
+     * @return the index of the string
+     */
+    private int intern(String string) {
+        Integer id = stringIds.get(string);
+        if (id != null)
+            return id;
+
+        stringIds.put(string, strings.size());
+        strings.add(string);
+        return strings.size() - 1;
+    }
+
+    /**
+     * creates an exception for an error in the world file
+     * @param lineNumber the line of the error
+     * @param message the description of the error
+     * @return the exception to throw
+     */
+    private static IllegalArgumentException error(int lineNumber, String message) {
+        return new IllegalArgumentException("Zeile " + lineNumber + ": " + message + "!");
+    }
+
+}
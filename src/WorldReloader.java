@@ -0,0 +1,126 @@
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * loads new versions of a world in the background and publishes them while sessions are running
+ * a new world is loaded completely on the reload thread and then published with a single volatile write, see
+ * World.replaceWith, the game threads never wait for a reload and take no lock
+ * if loading fails the current world stays active
+ */
+public class WorldReloader implements AutoCloseable {
+
+    private volatile World current;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "world-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private WatchService watchService = null;
+
+    /**
+     * constructor for a reloader
+     * @param world the current version of the world
+     */
+    public WorldReloader(World world) {
+        this.current = world.getLatest();
+    }
+
+    /**
+     * getter for the latest published world, new sessions should be started in this world
+     * @return the current world
+     */
+    public World getCurrent() {
+        return current;
+    }
+
+    /**
+     * loads a new version of the world on the reload thread and publishes it
+     * reloads are executed one after the other in the order they are requested
+     * @param loader creates the new world, for example by reading a world file
+     * @return the future of the published world, completed exceptionally if the loader fails
+     */
+    public CompletableFuture<World> reload(Callable<World> loader) {
+        CompletableFuture<World> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                World next = loader.call();
+                current.replaceWith(next);
+                current = next;
+                result.complete(next);
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * reloads the world every time a file is changed, failed reloads are printed to System.err
+     * @param file the world file to watch
+     * @param loader creates the new world from the file
+     * @throws IOException if the directory of the file can not be watched
+     * @throws IllegalStateException if a file is already watched
+     */
+    public synchronized void watch(Path file, Callable<World> loader) throws IOException {
+        if (watchService != null)
+            throw new IllegalStateException("Es wird bereits eine Datei beobachtet!");
+
+        Path absolute = file.toAbsolutePath();
+        watchService = absolute.getFileSystem().newWatchService();
+        absolute.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+
+        WatchService service = watchService;
+        Thread watcher = new Thread(() -> watchLoop(service, absolute.getFileName(), loader), "world-watch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * waits for changes of the watched file until the reloader is closed
+     * @param service the watch service of the directory of the file
+     * @param fileName the name of the file in its directory
+     * @param loader creates the new world from the file
+     */
+    private void watchLoop(WatchService service, Path fileName, Callable<World> loader) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents())
+                    changed |= fileName.equals(event.context());
+                key.reset();
+
+                if (changed) {
+                    reload(loader).whenComplete((world, error) -> {
+                        if (error != null)
+                            System.err.println("Die Welt konnte nicht neu geladen werden: " + error.getMessage());
+                    });
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // the reloader was closed
+        }
+    }
+
+    /**
+     * stops watching the world file and the reload thread, sessions keep playing in the current world
+     * @throws IOException if the watch service can not be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        executor.shutdown();
+        if (watchService != null)
+            watchService.close();
+    }
+
+}